@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import com.smartling.api.sdk.dto.file.StringResponse;
 import com.smartling.api.sdk.exceptions.SmartlingApiException;
 import com.smartling.api.sdk.file.response.ApiV2ResponseWrapper;
 import com.smartling.api.sdk.file.response.Response;
@@ -23,6 +24,10 @@ public abstract class BaseApiClient
 
     private static final String APPLICATION_JSON_TYPE = "application/json";
 
+    // Gson is thread safe, all the clients share the same instances
+    protected static final Gson RESPONSE_GSON = new GsonBuilder().registerTypeAdapter(Date.class, new DateTypeAdapter()).create();
+    private static final Gson REQUEST_GSON = new Gson();
+
     protected ProxyConfiguration proxyConfiguration;
 
     protected String baseUrl = DEFAULT_BASE_URL;
@@ -36,11 +41,7 @@ public abstract class BaseApiClient
 
         try
         {
-            final GsonBuilder builder = new GsonBuilder();
-            builder.registerTypeAdapter(Date.class, new DateTypeAdapter());
-
-            final Gson gson = builder.create();
-            final ApiV2ResponseWrapper<T> responseWrapper = gson.fromJson(fixedResponse, responseType.getType());
+            final ApiV2ResponseWrapper<T> responseWrapper = RESPONSE_GSON.fromJson(fixedResponse, responseType.getType());
 
             if (!isValidResponse(responseWrapper))
             {
@@ -55,6 +56,22 @@ public abstract class BaseApiClient
         }
     }
 
+    /**
+     * Parses the response and closes it, deleting its temporary file if it was buffered on disk.
+     */
+    protected static <T extends ResponseData> Response<T> getApiV2Response(final StringResponse response, final TypeToken<ApiV2ResponseWrapper<T>> responseType)
+            throws SmartlingApiException
+    {
+        try
+        {
+            return getApiV2Response(response.getContents(), responseType);
+        }
+        finally
+        {
+            response.close();
+        }
+    }
+
     private static <T extends ResponseData> boolean isValidResponse(ApiV2ResponseWrapper<T> responseWrapper)
     {
         return responseWrapper != null && responseWrapper.getResponse().getCode() != null;
@@ -66,8 +83,7 @@ public abstract class BaseApiClient
         final StringEntity stringEntity;
         try
         {
-            Gson gson = new Gson();
-            stringEntity = new StringEntity(gson.toJson(command));
+            stringEntity = new StringEntity(REQUEST_GSON.toJson(command));
             stringEntity.setContentType(APPLICATION_JSON_TYPE);
             stringEntity.setContentEncoding(CharEncoding.UTF_8);
             httpPost.setEntity(stringEntity);
@@ -0,0 +1,66 @@
+package com.smartling.api.sdk;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Bulkheads isolating {@link OperationClass}es from each other, so a burst of slow calls of one class can't starve the others.
+ * Each class gets its own limit of concurrent calls and its own connection pool partition.
+ * A limit of zero or less means the class is not limited, classes without a connection limit share the default pool.
+ */
+public class BulkheadConfiguration
+{
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 60000;
+
+    private final Map<OperationClass, Integer> maxConcurrentCalls = new EnumMap<>(OperationClass.class);
+    private final Map<OperationClass, Integer> maxConnections = new EnumMap<>(OperationClass.class);
+    private long maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
+
+    /**
+     * @param operationClass class of operations
+     * @param maxConcurrentCalls maximum number of calls of the class in flight at once
+     * @param maxConnections size of the connection pool partition of the class
+     * @return the current instance of a configuration
+     */
+    public BulkheadConfiguration limit(final OperationClass operationClass, final int maxConcurrentCalls, final int maxConnections)
+    {
+        this.maxConcurrentCalls.put(operationClass, maxConcurrentCalls);
+        this.maxConnections.put(operationClass, maxConnections);
+        return this;
+    }
+
+    public int getMaxConcurrentCalls(final OperationClass operationClass)
+    {
+        final Integer limit = maxConcurrentCalls.get(operationClass);
+        return limit != null ? limit : 0;
+    }
+
+    public int getMaxConnections(final OperationClass operationClass)
+    {
+        final Integer limit = maxConnections.get(operationClass);
+        return limit != null ? limit : 0;
+    }
+
+    /**
+     * @return how long a call waits for a free slot in its bulkhead before it is rejected
+     */
+    public long getMaxWaitMillis()
+    {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis)
+    {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BulkheadConfiguration{" +
+                "maxConcurrentCalls=" + maxConcurrentCalls +
+                ", maxConnections=" + maxConnections +
+                ", maxWaitMillis=" + maxWaitMillis +
+                '}';
+    }
+}
@@ -0,0 +1,141 @@
+package com.smartling.api.sdk;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per call options bound to the current thread. Every SDK call made by the thread while the context is attached,
+ * including token acquisition, shares the options, so a single deadline or {@link CancellationToken} can cover one call or a whole batch.
+ * <pre>
+ * CallContext.attach(new CallContext().deadline(10, TimeUnit.SECONDS));
+ * try
+ * {
+ *     fileApiClient.getFileStatus(fileUri);
+ * }
+ * finally
+ * {
+ *     CallContext.detach();
+ * }
+ * </pre>
+ */
+public class CallContext
+{
+    private static final ThreadLocal<CallContext> current = new ThreadLocal<>();
+
+    private volatile long deadlineNanos;
+    private volatile boolean deadlineSet;
+    private volatile CancellationToken cancellationToken;
+    private volatile CallPriority priority = CallPriority.INTERACTIVE;
+
+    public CallContext()
+    {
+    }
+
+    /**
+     * Creates a context with the same deadline, cancellation token and priority as the given one.
+     * @param callContext context to copy, can be {@code NULL}
+     */
+    public CallContext(final CallContext callContext)
+    {
+        if (callContext != null)
+        {
+            this.deadlineNanos = callContext.deadlineNanos;
+            this.deadlineSet = callContext.deadlineSet;
+            this.cancellationToken = callContext.cancellationToken;
+            this.priority = callContext.priority;
+        }
+    }
+
+    /**
+     * @return context attached to the current thread or {@code NULL}
+     */
+    public static CallContext current()
+    {
+        return current.get();
+    }
+
+    /**
+     * Binds the context to the current thread.
+     * @param callContext context to attach, {@code NULL} detaches the current one
+     */
+    public static void attach(final CallContext callContext)
+    {
+        if (callContext == null)
+            current.remove();
+        else
+            current.set(callContext);
+    }
+
+    public static void detach()
+    {
+        current.remove();
+    }
+
+    /**
+     * Sets the deadline relative to now.
+     * @param timeout time left for all the calls made under this context
+     * @param unit unit of the timeout
+     * @return the current instance of a context
+     */
+    public CallContext deadline(final long timeout, final TimeUnit unit)
+    {
+        this.deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+        this.deadlineSet = true;
+        return this;
+    }
+
+    public boolean hasDeadline()
+    {
+        return deadlineSet;
+    }
+
+    /**
+     * @return milliseconds left until the deadline, {@link Long#MAX_VALUE} if there is no deadline
+     */
+    public long getRemainingMillis()
+    {
+        if (!deadlineSet)
+            return Long.MAX_VALUE;
+
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isDeadlineExceeded()
+    {
+        return deadlineSet && deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @param cancellationToken token cancelling the calls made under this context
+     * @return the current instance of a context
+     */
+    public CallContext cancellationToken(final CancellationToken cancellationToken)
+    {
+        this.cancellationToken = cancellationToken;
+        return this;
+    }
+
+    public CancellationToken getCancellationToken()
+    {
+        return cancellationToken;
+    }
+
+    public boolean isCancelled()
+    {
+        return cancellationToken != null && cancellationToken.isCancelled();
+    }
+
+    /**
+     * @param priority priority of the calls made under this context, {@link CallPriority#INTERACTIVE} by default
+     * @return the current instance of a context
+     */
+    public CallContext priority(final CallPriority priority)
+    {
+        this.priority = priority != null ? priority : CallPriority.INTERACTIVE;
+        return this;
+    }
+
+    public CallPriority getPriority()
+    {
+        return priority;
+    }
+}
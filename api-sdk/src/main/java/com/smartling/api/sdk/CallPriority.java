@@ -0,0 +1,10 @@
+package com.smartling.api.sdk;
+
+/**
+ * Priority of the calls made under a {@link CallContext}, see {@link com.smartling.api.sdk.util.PriorityScheduler}.
+ */
+public enum CallPriority
+{
+    INTERACTIVE,    // a user is waiting for the answer, jumps the queue
+    BATCH           // background work, throttled while interactive calls are running
+}
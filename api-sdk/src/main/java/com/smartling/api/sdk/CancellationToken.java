@@ -0,0 +1,105 @@
+package com.smartling.api.sdk;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancels the calls made under a {@link CallContext}. Cancelling aborts in-flight requests,
+ * which closes their sockets and releases pooled connections immediately, and fails any further call.
+ */
+public class CancellationToken
+{
+    private final Set<HttpUriRequest> requests = new HashSet<>();
+    private final List<Runnable> listeners = new ArrayList<>();
+    private boolean cancelled;
+
+    public void cancel()
+    {
+        final List<HttpUriRequest> inFlight;
+        final List<Runnable> toNotify;
+        synchronized (this)
+        {
+            if (cancelled)
+                return;
+
+            cancelled = true;
+            inFlight = new ArrayList<>(requests);
+            requests.clear();
+            toNotify = new ArrayList<>(listeners);
+            listeners.clear();
+            notifyAll();
+        }
+
+        for (final HttpUriRequest request : inFlight)
+            request.abort();
+        // listeners run outside of the lock, they may take locks of their own
+        for (final Runnable listener : toNotify)
+            listener.run();
+    }
+
+    public synchronized boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    /**
+     * Waits until the token is cancelled, e.g. to pause between attempts of a call without outliving its cancellation.
+     * @param millis how long to wait at most
+     * @return whether the token is cancelled
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized boolean awaitCancellation(final long millis) throws InterruptedException
+    {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining = millis;
+        while (!cancelled && remaining > 0)
+        {
+            wait(remaining);
+            remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        }
+        return cancelled;
+    }
+
+    /**
+     * Tracks in-flight request so it can be aborted, used by the transport.
+     * @param request request about to be executed
+     * @return {@code false} if the token is already cancelled and request should not be sent
+     */
+    public synchronized boolean register(final HttpUriRequest request)
+    {
+        if (cancelled)
+            return false;
+
+        requests.add(request);
+        return true;
+    }
+
+    public synchronized void unregister(final HttpUriRequest request)
+    {
+        requests.remove(request);
+    }
+
+    /**
+     * Runs the listener once the token is cancelled, e.g. to wake up a call waiting in a queue of the transport.
+     * @param listener listener to run on the cancelling thread
+     * @return {@code false} if the token is already cancelled and the listener will not be run
+     */
+    public synchronized boolean addListener(final Runnable listener)
+    {
+        if (cancelled)
+            return false;
+
+        listeners.add(listener);
+        return true;
+    }
+
+    public synchronized void removeListener(final Runnable listener)
+    {
+        listeners.remove(listener);
+    }
+}
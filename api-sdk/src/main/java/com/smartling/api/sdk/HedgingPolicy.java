@@ -0,0 +1,98 @@
+package com.smartling.api.sdk;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Hedging policy for idempotent GET calls.
+ * If a call has not answered within the observed latency percentile a second identical request is sent,
+ * whichever finishes first wins and the other one is aborted.
+ */
+public class HedgingPolicy
+{
+    public static final double DEFAULT_DELAY_PERCENTILE = 95.0;
+    public static final long DEFAULT_MIN_DELAY_MILLIS = 10;
+    public static final long DEFAULT_INITIAL_DELAY_MILLIS = 500;
+    public static final double DEFAULT_MAX_HEDGE_RATIO = 0.05;
+
+    private double delayPercentile = DEFAULT_DELAY_PERCENTILE;
+    private long minDelayMillis = DEFAULT_MIN_DELAY_MILLIS;
+    private long initialDelayMillis = DEFAULT_INITIAL_DELAY_MILLIS;
+    private double maxHedgeRatio = DEFAULT_MAX_HEDGE_RATIO;
+    private ExecutorService executorService;
+
+    /**
+     * @return latency percentile (0-100) of recent calls after which a hedge is sent
+     */
+    public double getDelayPercentile()
+    {
+        return delayPercentile;
+    }
+
+    public void setDelayPercentile(double delayPercentile)
+    {
+        this.delayPercentile = delayPercentile;
+    }
+
+    /**
+     * @return lower bound of the hedge delay
+     */
+    public long getMinDelayMillis()
+    {
+        return minDelayMillis;
+    }
+
+    public void setMinDelayMillis(long minDelayMillis)
+    {
+        this.minDelayMillis = minDelayMillis;
+    }
+
+    /**
+     * @return hedge delay used until enough latency samples have been collected
+     */
+    public long getInitialDelayMillis()
+    {
+        return initialDelayMillis;
+    }
+
+    public void setInitialDelayMillis(long initialDelayMillis)
+    {
+        this.initialDelayMillis = initialDelayMillis;
+    }
+
+    /**
+     * @return maximum fraction of hedged calls to all calls, e.g. 0.05 allows one hedge per 20 calls
+     */
+    public double getMaxHedgeRatio()
+    {
+        return maxHedgeRatio;
+    }
+
+    public void setMaxHedgeRatio(double maxHedgeRatio)
+    {
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+
+    /**
+     * @return executor running the requests, if {@code NULL} a shared pool of daemon threads is used
+     */
+    public ExecutorService getExecutorService()
+    {
+        return executorService;
+    }
+
+    public void setExecutorService(ExecutorService executorService)
+    {
+        this.executorService = executorService;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "HedgingPolicy{" +
+                "delayPercentile=" + delayPercentile +
+                ", minDelayMillis=" + minDelayMillis +
+                ", initialDelayMillis=" + initialDelayMillis +
+                ", maxHedgeRatio=" + maxHedgeRatio +
+                '}';
+    }
+}
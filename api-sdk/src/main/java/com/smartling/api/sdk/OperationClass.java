@@ -0,0 +1,12 @@
+package com.smartling.api.sdk;
+
+/**
+ * Classes of SDK operations which can be isolated from each other, see {@link BulkheadConfiguration}.
+ */
+public enum OperationClass
+{
+    UPLOAD,     // file upload and translation import
+    DOWNLOAD,   // original and translated file download
+    METADATA,   // status, listing, last modified, rename and delete
+    AUTH        // authentication and token refresh
+}
@@ -15,6 +15,9 @@
  */
 package com.smartling.api.sdk;
 
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
 /**
  * Proxy configuration
  */
@@ -25,6 +28,22 @@ public class ProxyConfiguration
     private String username;
     private String password;
 
+    public ProxyConfiguration()
+    {
+    }
+
+    /**
+     * Creates a copy of the given configuration.
+     * @param proxyConfiguration configuration to copy
+     */
+    public ProxyConfiguration(final ProxyConfiguration proxyConfiguration)
+    {
+        this.host = proxyConfiguration.host;
+        this.port = proxyConfiguration.port;
+        this.username = proxyConfiguration.username;
+        this.password = proxyConfiguration.password;
+    }
+
     public String getHost()
     {
         return host;
@@ -65,6 +84,35 @@ public class ProxyConfiguration
         this.password = password;
     }
 
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        final ProxyConfiguration that = (ProxyConfiguration)o;
+
+        return new EqualsBuilder()
+                .append(host, that.host)
+                .append(port, that.port)
+                .append(username, that.username)
+                .append(password, that.password)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return new HashCodeBuilder()
+                .append(host)
+                .append(port)
+                .append(username)
+                .append(password)
+                .hashCode();
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,64 @@
+package com.smartling.api.sdk;
+
+/**
+ * Default timeouts applied to every http call. A value of zero or less leaves the timeout undefined.
+ */
+public class TimeoutConfiguration
+{
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 30000;
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS = 30000;
+    public static final int DEFAULT_SOCKET_TIMEOUT_MILLIS = 120000;
+
+    private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    private int connectionRequestTimeoutMillis = DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS;
+    private int socketTimeoutMillis = DEFAULT_SOCKET_TIMEOUT_MILLIS;
+
+    /**
+     * @return timeout for establishing a connection
+     */
+    public int getConnectTimeoutMillis()
+    {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis)
+    {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    /**
+     * @return timeout for leasing a connection from the connection pool
+     */
+    public int getConnectionRequestTimeoutMillis()
+    {
+        return connectionRequestTimeoutMillis;
+    }
+
+    public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis)
+    {
+        this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+    }
+
+    /**
+     * @return maximum period of inactivity between two consecutive data packets
+     */
+    public int getSocketTimeoutMillis()
+    {
+        return socketTimeoutMillis;
+    }
+
+    public void setSocketTimeoutMillis(int socketTimeoutMillis)
+    {
+        this.socketTimeoutMillis = socketTimeoutMillis;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TimeoutConfiguration{" +
+                "connectTimeoutMillis=" + connectTimeoutMillis +
+                ", connectionRequestTimeoutMillis=" + connectionRequestTimeoutMillis +
+                ", socketTimeoutMillis=" + socketTimeoutMillis +
+                '}';
+    }
+}
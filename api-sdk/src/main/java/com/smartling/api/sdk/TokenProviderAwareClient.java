@@ -3,6 +3,9 @@ package com.smartling.api.sdk;
 import com.smartling.api.sdk.auth.TokenProvider;
 import com.smartling.api.sdk.dto.file.StringResponse;
 import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import com.smartling.api.sdk.util.HedgedRequestExecutor;
+import com.smartling.api.sdk.util.RequestDescriptor;
+import com.smartling.api.sdk.util.ResponseStreamHandler;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpMessage;
 import org.apache.http.client.methods.HttpRequestBase;
@@ -11,10 +14,58 @@ public class TokenProviderAwareClient extends BaseApiClient
 {
     protected TokenProvider tokenProvider;
 
+    protected HedgedRequestExecutor hedgedRequestExecutor;
+
+    /**
+     * Executes request as a {@link OperationClass#METADATA} call.
+     * @deprecated use {@link #executeRequest(HttpRequestBase, OperationClass)} so the call gets the bulkhead of its operation class
+     */
+    @Deprecated
     protected StringResponse executeRequest(final HttpRequestBase request) throws SmartlingApiException
+    {
+        return executeRequest(request, OperationClass.METADATA);
+    }
+
+    protected StringResponse executeRequest(final HttpRequestBase request, final OperationClass operationClass) throws SmartlingApiException
+    {
+        return executeRequest(request, describe(operationClass));
+    }
+
+    protected StringResponse executeRequest(final HttpRequestBase request, final RequestDescriptor requestDescriptor) throws SmartlingApiException
     {
         addAuthorizationHeader(request);
-        return httpUtils.executeHttpCall(request, proxyConfiguration);
+        return httpUtils.executeHttpCall(request, proxyConfiguration, requestDescriptor);
+    }
+
+    /**
+     * Executes request handing the body of a successful response to the handler while it is received.
+     */
+    protected <T> T executeRequest(final HttpRequestBase request, final OperationClass operationClass, final ResponseStreamHandler<T> responseStreamHandler)
+            throws SmartlingApiException
+    {
+        addAuthorizationHeader(request);
+        return httpUtils.executeHttpCall(request, proxyConfiguration, describe(operationClass), responseStreamHandler);
+    }
+
+    /**
+     * Executes request which is safe to send twice, hedging it if a {@link HedgingPolicy} is configured.
+     */
+    protected StringResponse executeIdempotentRequest(final HttpRequestBase request, final OperationClass operationClass) throws SmartlingApiException
+    {
+        if (hedgedRequestExecutor == null)
+            return executeRequest(request, operationClass);
+
+        addAuthorizationHeader(request);
+        return hedgedRequestExecutor.execute(httpUtils, request, proxyConfiguration, describe(operationClass));
+    }
+
+    /**
+     * @param operationClass class of the operation
+     * @return descriptor of a call of the class made by this client
+     */
+    protected RequestDescriptor describe(final OperationClass operationClass)
+    {
+        return RequestDescriptor.of(operationClass);
     }
 
     private void addAuthorizationHeader(final HttpMessage httpMessage) throws SmartlingApiException
@@ -0,0 +1,170 @@
+package com.smartling.api.sdk;
+
+/**
+ * Tunes how file uploads and translation imports send their multipart body.
+ */
+public class UploadConfiguration
+{
+    public static final long DEFAULT_EXPECT_CONTINUE_THRESHOLD_BYTES = 0;
+    public static final int DEFAULT_MAX_ATTEMPTS = 1;
+    public static final long DEFAULT_RETRY_DELAY_MILLIS = 1000;
+    public static final long DEFAULT_MAX_RETRY_DELAY_MILLIS = 30000;
+
+    private long expectContinueThresholdBytes = DEFAULT_EXPECT_CONTINUE_THRESHOLD_BYTES;
+    private boolean validateBeforeUpload;
+    private boolean compressTextFormats;
+    private String digestAlgorithm;
+    private String targetCharset;
+    private UploadProgressListener progressListener;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long retryDelayMillis = DEFAULT_RETRY_DELAY_MILLIS;
+    private long maxRetryDelayMillis = DEFAULT_MAX_RETRY_DELAY_MILLIS;
+
+    /**
+     * @return body size above which the request asks the server to accept it with {@code Expect: 100-continue} before the body is sent,
+     * zero or less never asks. Bodies of unknown size, e.g. streams, always ask when the threshold is set.
+     */
+    public long getExpectContinueThresholdBytes()
+    {
+        return expectContinueThresholdBytes;
+    }
+
+    public void setExpectContinueThresholdBytes(long expectContinueThresholdBytes)
+    {
+        this.expectContinueThresholdBytes = expectContinueThresholdBytes;
+    }
+
+    /**
+     * @return whether the token and the project are checked with a lightweight authenticated call before the body is sent,
+     * so an expired token, a wrong project or throttling fail the upload without transmitting the file
+     */
+    public boolean isValidateBeforeUpload()
+    {
+        return validateBeforeUpload;
+    }
+
+    public void setValidateBeforeUpload(boolean validateBeforeUpload)
+    {
+        this.validateBeforeUpload = validateBeforeUpload;
+    }
+
+    /**
+     * @return whether uploads of text file types are gzip compressed while they are streamed. The compressed length isn't known
+     * upfront, so the body is sent chunked and nothing is buffered.
+     */
+    public boolean isCompressTextFormats()
+    {
+        return compressTextFormats;
+    }
+
+    public void setCompressTextFormats(boolean compressTextFormats)
+    {
+        this.compressTextFormats = compressTextFormats;
+    }
+
+    /**
+     * @return {@link java.security.MessageDigest} algorithm, e.g. {@code SHA-256}, of the digest computed over the uploaded content
+     * while it is sent and returned with the upload result, {@code NULL} computes no digest
+     */
+    public String getDigestAlgorithm()
+    {
+        return digestAlgorithm;
+    }
+
+    public void setDigestAlgorithm(String digestAlgorithm)
+    {
+        this.digestAlgorithm = digestAlgorithm;
+    }
+
+    /**
+     * @return charset text file types are converted to while they are uploaded, {@code NULL} sends them as they are.
+     * The source charset is detected from a byte order mark, or else taken from the charset of the upload parameters, UTF-8 if not set.
+     */
+    public String getTargetCharset()
+    {
+        return targetCharset;
+    }
+
+    public void setTargetCharset(String targetCharset)
+    {
+        this.targetCharset = targetCharset;
+    }
+
+    /**
+     * @return listener notified while upload bodies are sent, {@code NULL} tracks no progress
+     */
+    public UploadProgressListener getProgressListener()
+    {
+        return progressListener;
+    }
+
+    public void setProgressListener(UploadProgressListener progressListener)
+    {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * @return how many times an upload is sent when the connection fails. The API can't resume an upload, so it is sent again from
+     * the start, which needs a source the client can read again: files, paths, byte arrays and buffers. Stream uploads are sent once.
+     */
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts)
+    {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @return pause before an upload is sent again, doubled after every failed attempt up to {@link #getMaxRetryDelayMillis()}.
+     * The pause ends early when the deadline of the call runs out or the call is cancelled, see {@link CallContext}.
+     */
+    public long getRetryDelayMillis()
+    {
+        return retryDelayMillis;
+    }
+
+    public void setRetryDelayMillis(long retryDelayMillis)
+    {
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * @return longest pause before an upload is sent again
+     */
+    public long getMaxRetryDelayMillis()
+    {
+        return maxRetryDelayMillis;
+    }
+
+    public void setMaxRetryDelayMillis(long maxRetryDelayMillis)
+    {
+        this.maxRetryDelayMillis = maxRetryDelayMillis;
+    }
+
+    /**
+     * @param contentLength length of the body, negative when unknown
+     * @return whether the body should be sent only after the server accepted the request
+     */
+    public boolean isExpectContinue(long contentLength)
+    {
+        return expectContinueThresholdBytes > 0 && (contentLength < 0 || contentLength > expectContinueThresholdBytes);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "UploadConfiguration{" +
+                "expectContinueThresholdBytes=" + expectContinueThresholdBytes +
+                ", validateBeforeUpload=" + validateBeforeUpload +
+                ", compressTextFormats=" + compressTextFormats +
+                ", digestAlgorithm='" + digestAlgorithm + '\'' +
+                ", targetCharset='" + targetCharset + '\'' +
+                ", maxAttempts=" + maxAttempts +
+                ", retryDelayMillis=" + retryDelayMillis +
+                ", maxRetryDelayMillis=" + maxRetryDelayMillis +
+                '}';
+    }
+}
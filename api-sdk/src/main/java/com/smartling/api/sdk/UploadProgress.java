@@ -0,0 +1,92 @@
+package com.smartling.api.sdk;
+
+/**
+ * Snapshot of an upload in progress, see {@link UploadProgressListener}.
+ */
+public class UploadProgress
+{
+    private final String fileUri;
+    private final int attempt;
+    private final long bytesSent;
+    private final long totalBytes;
+    private final long elapsedMillis;
+
+    public UploadProgress(final String fileUri, final int attempt, final long bytesSent, final long totalBytes, final long elapsedMillis)
+    {
+        this.fileUri = fileUri;
+        this.attempt = attempt;
+        this.bytesSent = bytesSent;
+        this.totalBytes = totalBytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getFileUri()
+    {
+        return fileUri;
+    }
+
+    /**
+     * @return attempt sending the body, starting at 1. The count goes up every time the body is sent again after a failure.
+     */
+    public int getAttempt()
+    {
+        return attempt;
+    }
+
+    /**
+     * @return bytes of the request body sent in the current attempt
+     */
+    public long getBytesSent()
+    {
+        return bytesSent;
+    }
+
+    /**
+     * @return length of the request body, -1 if unknown, e.g. for streamed or compressed bodies
+     */
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    /**
+     * @return time since the current attempt started sending the body
+     */
+    public long getElapsedMillis()
+    {
+        return elapsedMillis;
+    }
+
+    public long getBytesPerSecond()
+    {
+        return elapsedMillis > 0 ? bytesSent * 1000 / elapsedMillis : 0;
+    }
+
+    /**
+     * @return estimated time to send the rest of the body, -1 if unknown
+     */
+    public long getEstimatedRemainingMillis()
+    {
+        final long bytesPerSecond = getBytesPerSecond();
+        if (totalBytes < 0 || bytesPerSecond == 0)
+            return -1;
+        return Math.max(0, totalBytes - bytesSent) * 1000 / bytesPerSecond;
+    }
+
+    public boolean isComplete()
+    {
+        return totalBytes >= 0 && bytesSent >= totalBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "UploadProgress{" +
+                "fileUri='" + fileUri + '\'' +
+                ", attempt=" + attempt +
+                ", bytesSent=" + bytesSent +
+                ", totalBytes=" + totalBytes +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
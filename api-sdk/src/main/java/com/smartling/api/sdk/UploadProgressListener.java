@@ -0,0 +1,9 @@
+package com.smartling.api.sdk;
+
+/**
+ * Receives the progress of uploads while their body is sent. Called on the thread sending the body, so it should return quickly.
+ */
+public interface UploadProgressListener
+{
+    void progressChanged(UploadProgress progress);
+}
@@ -2,17 +2,21 @@ package com.smartling.api.sdk.auth;
 
 import com.google.gson.reflect.TypeToken;
 import com.smartling.api.sdk.BaseApiClient;
+import com.smartling.api.sdk.OperationClass;
 import com.smartling.api.sdk.ProxyConfiguration;
 import com.smartling.api.sdk.dto.file.StringResponse;
 import com.smartling.api.sdk.exceptions.SmartlingApiException;
 import com.smartling.api.sdk.file.response.ApiV2ResponseWrapper;
 import com.smartling.api.sdk.file.response.Response;
+import com.smartling.api.sdk.util.HttpUtils;
+import com.smartling.api.sdk.util.RequestDescriptor;
 import org.apache.http.client.methods.HttpPost;
 
 public class AuthApiClient extends BaseApiClient
 {
     public static final String AUTH_API_V2_AUTHENTICATE = "/auth-api/v2/authenticate";
     public static final String AUTH_API_V2_REFRESH = "/auth-api/v2/authenticate/refresh";
+    private static final RequestDescriptor AUTH_REQUEST = RequestDescriptor.of(OperationClass.AUTH);
     private final ProxyConfiguration proxyConfiguration;
 
     public AuthApiClient()
@@ -36,6 +40,12 @@ public class AuthApiClient extends BaseApiClient
         this.baseUrl = baseUrl;
     }
 
+    public AuthApiClient(final ProxyConfiguration proxyConfiguration, final String baseUrl, final HttpUtils httpUtils)
+    {
+        this(proxyConfiguration, baseUrl);
+        this.httpUtils = httpUtils;
+    }
+
     public Response<AuthenticationContext> authenticate(AuthenticationCommand authenticationCommand)
             throws SmartlingApiException
     {
@@ -44,9 +54,9 @@ public class AuthApiClient extends BaseApiClient
                 authenticationCommand
         );
 
-        final StringResponse response = httpUtils.executeHttpCall(httpPost, proxyConfiguration);
+        final StringResponse response = httpUtils.executeHttpCall(httpPost, proxyConfiguration, AUTH_REQUEST);
 
-        return getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<AuthenticationContext>>() {});
+        return getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<AuthenticationContext>>() {});
     }
 
     public Response<AuthenticationContext> refresh(String refreshKey)
@@ -57,9 +67,9 @@ public class AuthApiClient extends BaseApiClient
                 refreshKey
         );
 
-        final StringResponse response = httpUtils.executeHttpCall(httpPost, proxyConfiguration);
+        final StringResponse response = httpUtils.executeHttpCall(httpPost, proxyConfiguration, AUTH_REQUEST);
 
-        return getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<AuthenticationContext>>() {});
+        return getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<AuthenticationContext>>() {});
     }
 
     private String getApiUrl(final String url, String baseAuthApiUrl)
@@ -15,32 +15,145 @@
  */
 package com.smartling.api.sdk.dto.file;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+
 /**
  * Internal class used in storing the string content of the response along with the encoding.
+ * Large responses may be kept in a temporary file instead of the heap, read them with {@link #openStream()} or {@link #openReader()},
+ * {@link #getContents()} and {@link #getContentsRaw()} load the whole file into the heap. {@link #close()} the response to delete
+ * the file and to give back its heap to the {@code ResponseBuffer} which read it.
  */
-public class StringResponse
+public class StringResponse implements Closeable
 {
     private final String contents;
     private final byte[] contentsRaw;
+    private final File contentsFile;
+    private final long contentLength;
     private final String encoding;
     private final boolean success;
+    private final Closeable release;
 
     public StringResponse(final String contents, final byte[] contentsRaw, final String encoding, final boolean success)
+    {
+        this(contents, contentsRaw, encoding, success, null);
+    }
+
+    /**
+     * @param release closed with the response, e.g. to give back the heap reserved for the body, can be {@code NULL}
+     */
+    public StringResponse(final String contents, final byte[] contentsRaw, final String encoding, final boolean success, final Closeable release)
     {
         this.contents = contents;
         this.contentsRaw = contentsRaw;
+        this.contentsFile = null;
+        this.contentLength = contentsRaw != null ? contentsRaw.length : -1;
+        this.encoding = encoding;
+        this.success = success;
+        this.release = release;
+    }
+
+    /**
+     * Response decoded from a reused buffer, its bytes are encoded again if asked for.
+     */
+    public StringResponse(final String contents, final long contentLength, final String encoding, final boolean success)
+    {
+        this.contents = contents;
+        this.contentsRaw = null;
+        this.contentsFile = null;
+        this.contentLength = contentLength;
         this.encoding = encoding;
         this.success = success;
+        this.release = null;
     }
 
+    /**
+     * @param contentsFile temporary file with the body, deleted when the response is closed
+     */
+    public StringResponse(final File contentsFile, final String encoding, final boolean success)
+    {
+        this.contents = null;
+        this.contentsRaw = null;
+        this.contentsFile = contentsFile;
+        this.contentLength = contentsFile.length();
+        this.encoding = encoding;
+        this.success = success;
+        this.release = null;
+    }
+
+    /**
+     * @return the body decoded, read from the temporary file into the heap on every call if the body was buffered on disk,
+     * use {@link #openReader()} to read it piece by piece
+     */
     public String getContents()
     {
-        return contents;
+        if (contentsFile == null)
+            return contents;
+
+        try
+        {
+            return new String(getContentsRaw(), encoding);
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException(e);
+        }
     }
 
+    /**
+     * @return the body, read from the temporary file into the heap on every call if the body was buffered on disk,
+     * use {@link #openStream()} to read it piece by piece
+     */
     public byte[] getContentsRaw()
     {
-        return contentsRaw;
+        if (contentsFile == null)
+            return contentsRaw != null ? contentsRaw : encode(contents);
+
+        try
+        {
+            return FileUtils.readFileToByteArray(contentsFile);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(String.format("Failed to read buffered response '%s'", contentsFile), e);
+        }
+    }
+
+    /**
+     * @return a new stream over the body, which doesn't load a body buffered on disk into the heap
+     */
+    public InputStream openStream() throws IOException
+    {
+        return contentsFile != null ? new FileInputStream(contentsFile) : new ByteArrayInputStream(getContentsRaw());
+    }
+
+    /**
+     * @return a new reader decoding the body, which doesn't load a body buffered on disk into the heap
+     */
+    public Reader openReader() throws IOException
+    {
+        return contentsFile != null ? new InputStreamReader(new FileInputStream(contentsFile), encoding) : new StringReader(contents != null ? contents : "");
+    }
+
+    public long getContentLength()
+    {
+        return contentLength;
+    }
+
+    public boolean isBufferedOnDisk()
+    {
+        return contentsFile != null;
     }
 
     public String getEncoding()
@@ -52,4 +165,27 @@ public class StringResponse
     {
         return success;
     }
+
+    private byte[] encode(final String text)
+    {
+        try
+        {
+            return text != null ? text.getBytes(encoding) : null;
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Deletes the temporary file of a body buffered on disk, or gives back the heap reserved for a body kept in the heap.
+     */
+    @Override
+    public void close()
+    {
+        if (contentsFile != null)
+            FileUtils.deleteQuietly(contentsFile);
+        IOUtils.closeQuietly(release);
+    }
 }
@@ -27,6 +27,8 @@ public class UploadFileData implements ResponseData
     private int     stringCount;
     private int     wordCount;
     private boolean overWritten;
+    private transient String contentDigest;
+    private transient boolean skipped;
 
     /**
      * The number of strings in the uploaded file.
@@ -58,6 +60,37 @@ public class UploadFileData implements ResponseData
         return overWritten;
     }
 
+    /**
+     * Digest of the uploaded content computed while it was sent, see {@link com.smartling.api.sdk.UploadConfiguration#setDigestAlgorithm(String)}.
+     *
+     * @return lower case hex digest, {@code NULL} if no digest was computed
+     */
+    public String getContentDigest()
+    {
+        return contentDigest;
+    }
+
+    public void setContentDigest(String contentDigest)
+    {
+        this.contentDigest = contentDigest;
+    }
+
+    /**
+     * Returns whether the upload was skipped because the same content had already been uploaded with the same parameters,
+     * see {@link com.smartling.api.sdk.file.DeduplicatingFileApiClient}. Counts of a skipped upload are zero.
+     *
+     * @return skipped
+     */
+    public boolean isSkipped()
+    {
+        return skipped;
+    }
+
+    public void setSkipped(boolean skipped)
+    {
+        this.skipped = skipped;
+    }
+
     @Override
     public String toString()
     {
@@ -65,6 +98,8 @@ public class UploadFileData implements ResponseData
                 .append("stringCount", getStringCount())
                 .append("wordCount", getWordCount())
                 .append("overWritten", isOverWritten())
+                .append("contentDigest", getContentDigest())
+                .append("skipped", isSkipped())
                 .toString();
     }
 }
@@ -0,0 +1,20 @@
+package com.smartling.api.sdk.exceptions;
+
+/**
+ * Carries a {@link SmartlingApiException} out of APIs which can't throw checked exceptions, e.g. iterators.
+ */
+public class UncheckedSmartlingApiException extends RuntimeException
+{
+    private static final long serialVersionUID = 4213650472196270113L;
+
+    public UncheckedSmartlingApiException(final SmartlingApiException cause)
+    {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SmartlingApiException getCause()
+    {
+        return (SmartlingApiException)super.getCause();
+    }
+}
@@ -0,0 +1,357 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CancellationToken;
+import com.smartling.api.sdk.dto.file.FileLastModified;
+import com.smartling.api.sdk.dto.file.StringResponse;
+import com.smartling.api.sdk.dto.file.UploadFileData;
+import com.smartling.api.sdk.file.parameters.FileImportParameterBuilder;
+import com.smartling.api.sdk.file.parameters.FileLastModifiedParameterBuilder;
+import com.smartling.api.sdk.file.parameters.FileListSearchParameterBuilder;
+import com.smartling.api.sdk.file.parameters.FileUploadParameterBuilder;
+import com.smartling.api.sdk.file.parameters.GetFileParameterBuilder;
+import com.smartling.api.sdk.file.parameters.GetOriginalFileParameterBuilder;
+import com.smartling.api.sdk.file.response.EmptyResponse;
+import com.smartling.api.sdk.file.response.FileImportSmartlingData;
+import com.smartling.api.sdk.file.response.FileList;
+import com.smartling.api.sdk.file.response.FileLocaleStatus;
+import com.smartling.api.sdk.file.response.FileStatus;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs {@link FileApiClient} calls on an executor. Cancelling a returned future aborts the in-flight http request
+ * and releases its connection right away, even if the call is blocked reading the socket.
+ * The deadline of the {@link CallContext} attached to the submitting thread applies to the call,
+ * and cancelling its {@link CancellationToken} cancels the call as well.
+ * The calls of {@link StreamingFileApiClient} can only be made if the wrapped client implements it,
+ * their content must not be changed until the call is done.
+ */
+public class AsyncFileApiClient
+{
+    private final FileApiClient fileApiClient;
+    private final ExecutorService executorService;
+
+    public AsyncFileApiClient(final FileApiClient fileApiClient, final ExecutorService executorService)
+    {
+        this.fileApiClient = fileApiClient;
+        this.executorService = executorService;
+    }
+
+    public Future<UploadFileData> uploadFile(final File fileToUpload, final FileUploadParameterBuilder fileUploadParameterBuilder)
+    {
+        return submit(new Callable<UploadFileData>()
+        {
+            @Override
+            public UploadFileData call() throws Exception
+            {
+                return fileApiClient.uploadFile(fileToUpload, fileUploadParameterBuilder);
+            }
+        });
+    }
+
+    public Future<UploadFileData> uploadFile(final InputStream inputStream, final String fileName, final FileUploadParameterBuilder fileUploadParameterBuilder)
+    {
+        return submit(new Callable<UploadFileData>()
+        {
+            @Override
+            public UploadFileData call() throws Exception
+            {
+                return fileApiClient.uploadFile(inputStream, fileName, fileUploadParameterBuilder);
+            }
+        });
+    }
+
+    public Future<UploadFileData> uploadFile(final Path fileToUpload, final FileUploadParameterBuilder fileUploadParameterBuilder)
+    {
+        final StreamingFileApiClient streamingClient = streamingClient();
+        return submit(new Callable<UploadFileData>()
+        {
+            @Override
+            public UploadFileData call() throws Exception
+            {
+                return streamingClient.uploadFile(fileToUpload, fileUploadParameterBuilder);
+            }
+        });
+    }
+
+    public Future<UploadFileData> uploadFile(final byte[] contents, final String fileName, final FileUploadParameterBuilder fileUploadParameterBuilder)
+    {
+        final StreamingFileApiClient streamingClient = streamingClient();
+        return submit(new Callable<UploadFileData>()
+        {
+            @Override
+            public UploadFileData call() throws Exception
+            {
+                return streamingClient.uploadFile(contents, fileName, fileUploadParameterBuilder);
+            }
+        });
+    }
+
+    public Future<UploadFileData> uploadFile(final ByteBuffer contents, final String fileName, final FileUploadParameterBuilder fileUploadParameterBuilder)
+    {
+        final StreamingFileApiClient streamingClient = streamingClient();
+        return submit(new Callable<UploadFileData>()
+        {
+            @Override
+            public UploadFileData call() throws Exception
+            {
+                return streamingClient.uploadFile(contents, fileName, fileUploadParameterBuilder);
+            }
+        });
+    }
+
+    public Future<EmptyResponse> deleteFile(final String fileUri)
+    {
+        return submit(new Callable<EmptyResponse>()
+        {
+            @Override
+            public EmptyResponse call() throws Exception
+            {
+                return fileApiClient.deleteFile(fileUri);
+            }
+        });
+    }
+
+    public Future<EmptyResponse> renameFile(final String fileUri, final String newFileUri)
+    {
+        return submit(new Callable<EmptyResponse>()
+        {
+            @Override
+            public EmptyResponse call() throws Exception
+            {
+                return fileApiClient.renameFile(fileUri, newFileUri);
+            }
+        });
+    }
+
+    public Future<FileLastModified> getLastModified(final FileLastModifiedParameterBuilder builder)
+    {
+        return submit(new Callable<FileLastModified>()
+        {
+            @Override
+            public FileLastModified call() throws Exception
+            {
+                return fileApiClient.getLastModified(builder);
+            }
+        });
+    }
+
+    public Future<StringResponse> getFile(final GetFileParameterBuilder getFileParameterBuilder)
+    {
+        return submit(new Callable<StringResponse>()
+        {
+            @Override
+            public StringResponse call() throws Exception
+            {
+                return fileApiClient.getFile(getFileParameterBuilder);
+            }
+        });
+    }
+
+    public Future<StringResponse> getOriginalFile(final GetOriginalFileParameterBuilder getFileParameterBuilder)
+    {
+        return submit(new Callable<StringResponse>()
+        {
+            @Override
+            public StringResponse call() throws Exception
+            {
+                return fileApiClient.getOriginalFile(getFileParameterBuilder);
+            }
+        });
+    }
+
+    public Future<FileList> getFilesList(final FileListSearchParameterBuilder fileListSearchParameterBuilder)
+    {
+        return submit(new Callable<FileList>()
+        {
+            @Override
+            public FileList call() throws Exception
+            {
+                return fileApiClient.getFilesList(fileListSearchParameterBuilder);
+            }
+        });
+    }
+
+    /**
+     * The consumer is called on a thread of the executor.
+     * @return number of files matching the search
+     */
+    public Future<Integer> getFilesList(final FileListSearchParameterBuilder fileListSearchParameterBuilder, final FileListItemConsumer consumer)
+    {
+        final StreamingFileApiClient streamingClient = streamingClient();
+        return submit(new Callable<Integer>()
+        {
+            @Override
+            public Integer call() throws Exception
+            {
+                return streamingClient.getFilesList(fileListSearchParameterBuilder, consumer);
+            }
+        });
+    }
+
+    public Future<FileLocaleStatus> getFileLocaleStatus(final String fileUri, final String locale)
+    {
+        return submit(new Callable<FileLocaleStatus>()
+        {
+            @Override
+            public FileLocaleStatus call() throws Exception
+            {
+                return fileApiClient.getFileLocaleStatus(fileUri, locale);
+            }
+        });
+    }
+
+    public Future<FileStatus> getFileStatus(final String fileUri)
+    {
+        return submit(new Callable<FileStatus>()
+        {
+            @Override
+            public FileStatus call() throws Exception
+            {
+                return fileApiClient.getFileStatus(fileUri);
+            }
+        });
+    }
+
+    public Future<FileImportSmartlingData> importTranslations(final FileImportParameterBuilder fileImportParameterBuilder)
+    {
+        return submit(new Callable<FileImportSmartlingData>()
+        {
+            @Override
+            public FileImportSmartlingData call() throws Exception
+            {
+                return fileApiClient.importTranslations(fileImportParameterBuilder);
+            }
+        });
+    }
+
+    public Future<FileImportSmartlingData> importTranslations(final InputStream inputStream, final String fileName,
+                                                              final FileImportParameterBuilder fileImportParameterBuilder)
+    {
+        final StreamingFileApiClient streamingClient = streamingClient();
+        return submit(new Callable<FileImportSmartlingData>()
+        {
+            @Override
+            public FileImportSmartlingData call() throws Exception
+            {
+                return streamingClient.importTranslations(inputStream, fileName, fileImportParameterBuilder);
+            }
+        });
+    }
+
+    public Future<FileImportSmartlingData> importTranslations(final ReadableByteChannel channel, final String fileName,
+                                                              final FileImportParameterBuilder fileImportParameterBuilder)
+    {
+        final StreamingFileApiClient streamingClient = streamingClient();
+        return submit(new Callable<FileImportSmartlingData>()
+        {
+            @Override
+            public FileImportSmartlingData call() throws Exception
+            {
+                return streamingClient.importTranslations(channel, fileName, fileImportParameterBuilder);
+            }
+        });
+    }
+
+    public Future<FileImportSmartlingData> importTranslations(final ByteBuffer contents, final String fileName,
+                                                              final FileImportParameterBuilder fileImportParameterBuilder)
+    {
+        final StreamingFileApiClient streamingClient = streamingClient();
+        return submit(new Callable<FileImportSmartlingData>()
+        {
+            @Override
+            public FileImportSmartlingData call() throws Exception
+            {
+                return streamingClient.importTranslations(contents, fileName, fileImportParameterBuilder);
+            }
+        });
+    }
+
+    private StreamingFileApiClient streamingClient()
+    {
+        if (!(fileApiClient instanceof StreamingFileApiClient))
+            throw new UnsupportedOperationException("Wrapped client is not a StreamingFileApiClient");
+        return (StreamingFileApiClient)fileApiClient;
+    }
+
+    private <T> Future<T> submit(final Callable<T> call)
+    {
+        final CallContext parentContext = CallContext.current();
+        final CancellationToken parentToken = parentContext != null ? parentContext.getCancellationToken() : null;
+        final CancellationToken cancellationToken = new CancellationToken();
+        final CallContext callContext = new CallContext(parentContext).cancellationToken(cancellationToken);
+
+        // the call gets a token of its own so cancelling the future doesn't cancel the other calls of the caller
+        final Runnable cancelCall = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                cancellationToken.cancel();
+            }
+        };
+        if (parentToken != null && !parentToken.addListener(cancelCall))
+            cancellationToken.cancel();
+
+        final CancellableFuture<T> future = new CancellableFuture<>(new Callable<T>()
+        {
+            @Override
+            public T call() throws Exception
+            {
+                CallContext.attach(callContext);
+                try
+                {
+                    return call.call();
+                }
+                finally
+                {
+                    CallContext.detach();
+                }
+            }
+        }, cancellationToken, parentToken, cancelCall);
+        executorService.execute(future);
+        return future;
+    }
+
+    private static class CancellableFuture<T> extends FutureTask<T>
+    {
+        private final CancellationToken cancellationToken;
+        private final CancellationToken parentToken;
+        private final Runnable cancelCall;
+
+        private CancellableFuture(final Callable<T> callable, final CancellationToken cancellationToken,
+                                  final CancellationToken parentToken, final Runnable cancelCall)
+        {
+            super(callable);
+            this.cancellationToken = cancellationToken;
+            this.parentToken = parentToken;
+            this.cancelCall = cancelCall;
+        }
+
+        @Override
+        protected void done()
+        {
+            // a long living parent token must not hold on to finished calls
+            if (parentToken != null)
+                parentToken.removeListener(cancelCall);
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning)
+        {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled)
+                cancellationToken.cancel();
+            return cancelled;
+        }
+    }
+}
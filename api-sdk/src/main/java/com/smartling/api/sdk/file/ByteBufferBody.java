@@ -0,0 +1,66 @@
+package com.smartling.api.sdk.file;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * File part backed by a buffer, e.g. a memory-mapped file. Its length is known, so the multipart entity has an exact
+ * {@code Content-Length} and can be written again when the request is retried. The buffer itself is never moved.
+ */
+class ByteBufferBody extends AbstractContentBody
+{
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final ByteBuffer buffer;
+    private final String fileName;
+
+    ByteBufferBody(final ByteBuffer buffer, final ContentType contentType, final String fileName)
+    {
+        super(contentType);
+        this.buffer = buffer.duplicate();
+        this.fileName = fileName;
+    }
+
+    @Override
+    public String getFilename()
+    {
+        return fileName;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException
+    {
+        final ByteBuffer source = buffer.duplicate();
+        if (source.hasArray())
+        {
+            out.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+            return;
+        }
+
+        // direct and mapped buffers are copied through one chunk, the output stream only takes arrays
+        final byte[] chunk = new byte[Math.min(CHUNK_SIZE, source.remaining())];
+        while (source.hasRemaining())
+        {
+            final int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    @Override
+    public String getTransferEncoding()
+    {
+        return MIME.ENC_BINARY;
+    }
+
+    @Override
+    public long getContentLength()
+    {
+        return buffer.remaining();
+    }
+}
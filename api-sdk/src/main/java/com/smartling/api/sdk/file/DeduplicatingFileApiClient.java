@@ -0,0 +1,335 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.dto.file.FileLastModified;
+import com.smartling.api.sdk.dto.file.StringResponse;
+import com.smartling.api.sdk.dto.file.UploadFileData;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import com.smartling.api.sdk.file.parameters.FileApiParameter;
+import com.smartling.api.sdk.file.parameters.FileImportParameterBuilder;
+import com.smartling.api.sdk.file.parameters.FileLastModifiedParameterBuilder;
+import com.smartling.api.sdk.file.parameters.FileListSearchParameterBuilder;
+import com.smartling.api.sdk.file.parameters.FileUploadParameterBuilder;
+import com.smartling.api.sdk.file.parameters.GetFileParameterBuilder;
+import com.smartling.api.sdk.file.parameters.GetOriginalFileParameterBuilder;
+import com.smartling.api.sdk.file.response.EmptyResponse;
+import com.smartling.api.sdk.file.response.FileImportSmartlingData;
+import com.smartling.api.sdk.file.response.FileList;
+import com.smartling.api.sdk.file.response.FileLocaleStatus;
+import com.smartling.api.sdk.file.response.FileStatus;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.NameValuePair;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Skips uploads of content which has already been uploaded with the same parameters, e.g. unchanged resource files of CI runs.
+ * Every upload is recorded in an {@link UploadIndex} under its project and file URI, with a fingerprint of its content digest,
+ * file type, directives and charset. A skipped upload returns {@link UploadFileData#isSkipped()} without calling the API.
+ * <p>
+ * Uploads from an {@link InputStream} can't be checked without reading the stream twice, they are always sent and forgotten by the index.
+ * Deleted and renamed files are forgotten too, so they are uploaded again. All the other calls are passed to the wrapped client.
+ */
+public class DeduplicatingFileApiClient implements StreamingFileApiClient
+{
+    private static final Log logger = LogFactory.getLog(DeduplicatingFileApiClient.class);
+
+    public static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final StreamingFileApiClient fileApiClient;
+    private final String projectId;
+    private final UploadIndex uploadIndex;
+    private volatile boolean forceUpload;
+
+    /**
+     * @param fileApiClient client sending the uploads
+     * @param projectId project of the client, part of the index keys
+     * @param uploadIndex index of uploaded content, can be shared by clients of several projects
+     */
+    public DeduplicatingFileApiClient(final StreamingFileApiClient fileApiClient, final String projectId, final UploadIndex uploadIndex)
+    {
+        this.fileApiClient = fileApiClient;
+        this.projectId = projectId;
+        this.uploadIndex = uploadIndex;
+    }
+
+    public boolean isForceUpload()
+    {
+        return forceUpload;
+    }
+
+    /**
+     * @param forceUpload send every upload even if its content is unchanged, the index is still updated
+     */
+    public void setForceUpload(boolean forceUpload)
+    {
+        this.forceUpload = forceUpload;
+    }
+
+    @Override
+    public UploadFileData uploadFile(final File fileToUpload, final FileUploadParameterBuilder fileUploadParameterBuilder) throws SmartlingApiException
+    {
+        final String digest = digest(fileToUpload.toPath());
+        final String key = indexKey(fileUploadParameterBuilder.getFileUri());
+        final String fingerprint = fingerprint(fileUploadParameterBuilder, digest);
+        if (isUnchanged(key, fingerprint))
+            return skipped(digest);
+
+        return recordUpload(key, fingerprint, fileApiClient.uploadFile(fileToUpload, fileUploadParameterBuilder));
+    }
+
+    @Override
+    public UploadFileData uploadFile(final InputStream inputStream, final String fileName, final FileUploadParameterBuilder fileUploadParameterBuilder)
+            throws SmartlingApiException
+    {
+        final UploadFileData uploadFileData = fileApiClient.uploadFile(inputStream, fileName, fileUploadParameterBuilder);
+        forget(fileUploadParameterBuilder.getFileUri());
+        return uploadFileData;
+    }
+
+    @Override
+    public UploadFileData uploadFile(final Path fileToUpload, final FileUploadParameterBuilder fileUploadParameterBuilder) throws SmartlingApiException
+    {
+        final String digest = digest(fileToUpload);
+        final String key = indexKey(fileUploadParameterBuilder.getFileUri());
+        final String fingerprint = fingerprint(fileUploadParameterBuilder, digest);
+        if (isUnchanged(key, fingerprint))
+            return skipped(digest);
+
+        return recordUpload(key, fingerprint, fileApiClient.uploadFile(fileToUpload, fileUploadParameterBuilder));
+    }
+
+    @Override
+    public UploadFileData uploadFile(final byte[] contents, final String fileName, final FileUploadParameterBuilder fileUploadParameterBuilder)
+            throws SmartlingApiException
+    {
+        final String digest = digest(ByteBuffer.wrap(contents));
+        final String key = indexKey(fileUploadParameterBuilder.getFileUri());
+        final String fingerprint = fingerprint(fileUploadParameterBuilder, digest);
+        if (isUnchanged(key, fingerprint))
+            return skipped(digest);
+
+        return recordUpload(key, fingerprint, fileApiClient.uploadFile(contents, fileName, fileUploadParameterBuilder));
+    }
+
+    @Override
+    public UploadFileData uploadFile(final ByteBuffer contents, final String fileName, final FileUploadParameterBuilder fileUploadParameterBuilder)
+            throws SmartlingApiException
+    {
+        final String digest = digest(contents);
+        final String key = indexKey(fileUploadParameterBuilder.getFileUri());
+        final String fingerprint = fingerprint(fileUploadParameterBuilder, digest);
+        if (isUnchanged(key, fingerprint))
+            return skipped(digest);
+
+        return recordUpload(key, fingerprint, fileApiClient.uploadFile(contents, fileName, fileUploadParameterBuilder));
+    }
+
+    @Override
+    public EmptyResponse deleteFile(final String fileUri) throws SmartlingApiException
+    {
+        final EmptyResponse response = fileApiClient.deleteFile(fileUri);
+        forget(fileUri);
+        return response;
+    }
+
+    @Override
+    public EmptyResponse renameFile(final String fileUri, final String newFileUri) throws SmartlingApiException
+    {
+        final EmptyResponse response = fileApiClient.renameFile(fileUri, newFileUri);
+        forget(fileUri);
+        forget(newFileUri);
+        return response;
+    }
+
+    @Override
+    public FileLastModified getLastModified(final FileLastModifiedParameterBuilder builder) throws SmartlingApiException
+    {
+        return fileApiClient.getLastModified(builder);
+    }
+
+    @Override
+    public StringResponse getFile(final GetFileParameterBuilder getFileParameterBuilder) throws SmartlingApiException
+    {
+        return fileApiClient.getFile(getFileParameterBuilder);
+    }
+
+    @Override
+    public StringResponse getOriginalFile(final GetOriginalFileParameterBuilder getFileParameterBuilder) throws SmartlingApiException
+    {
+        return fileApiClient.getOriginalFile(getFileParameterBuilder);
+    }
+
+    @Override
+    public FileList getFilesList(final FileListSearchParameterBuilder fileListSearchParameterBuilder) throws SmartlingApiException
+    {
+        return fileApiClient.getFilesList(fileListSearchParameterBuilder);
+    }
+
+    @Override
+    public int getFilesList(final FileListSearchParameterBuilder fileListSearchParameterBuilder, final FileListItemConsumer consumer)
+            throws SmartlingApiException
+    {
+        return fileApiClient.getFilesList(fileListSearchParameterBuilder, consumer);
+    }
+
+    @Override
+    public FileLocaleStatus getFileLocaleStatus(final String fileUri, final String locale) throws SmartlingApiException
+    {
+        return fileApiClient.getFileLocaleStatus(fileUri, locale);
+    }
+
+    @Override
+    public FileStatus getFileStatus(final String fileUri) throws SmartlingApiException
+    {
+        return fileApiClient.getFileStatus(fileUri);
+    }
+
+    @Override
+    public FileImportSmartlingData importTranslations(final FileImportParameterBuilder fileImportParameterBuilder) throws SmartlingApiException
+    {
+        return fileApiClient.importTranslations(fileImportParameterBuilder);
+    }
+
+    @Override
+    public FileImportSmartlingData importTranslations(final InputStream inputStream, final String fileName,
+                                                      final FileImportParameterBuilder fileImportParameterBuilder) throws SmartlingApiException
+    {
+        return fileApiClient.importTranslations(inputStream, fileName, fileImportParameterBuilder);
+    }
+
+    @Override
+    public FileImportSmartlingData importTranslations(final ReadableByteChannel channel, final String fileName,
+                                                      final FileImportParameterBuilder fileImportParameterBuilder) throws SmartlingApiException
+    {
+        return fileApiClient.importTranslations(channel, fileName, fileImportParameterBuilder);
+    }
+
+    @Override
+    public FileImportSmartlingData importTranslations(final ByteBuffer contents, final String fileName,
+                                                      final FileImportParameterBuilder fileImportParameterBuilder) throws SmartlingApiException
+    {
+        return fileApiClient.importTranslations(contents, fileName, fileImportParameterBuilder);
+    }
+
+    private boolean isUnchanged(final String key, final String fingerprint)
+    {
+        return !forceUpload && fingerprint.equals(uploadIndex.getDigest(key));
+    }
+
+    private UploadFileData recordUpload(final String key, final String fingerprint, final UploadFileData uploadFileData)
+    {
+        try
+        {
+            uploadIndex.putDigest(key, fingerprint);
+        }
+        catch (IOException e)
+        {
+            // the upload succeeded, it is only sent again next time
+            logger.warn(String.format("Upload is not recorded in the index: %s", e.getMessage()));
+        }
+        return uploadFileData;
+    }
+
+    private void forget(final String fileUri)
+    {
+        try
+        {
+            uploadIndex.remove(indexKey(fileUri));
+        }
+        catch (IOException e)
+        {
+            logger.warn(String.format("Upload of '%s' is not removed from the index: %s", fileUri, e.getMessage()));
+        }
+    }
+
+    private static UploadFileData skipped(final String digest)
+    {
+        final UploadFileData uploadFileData = new UploadFileData();
+        uploadFileData.setSkipped(true);
+        uploadFileData.setContentDigest(digest);
+        return uploadFileData;
+    }
+
+    private String indexKey(final String fileUri)
+    {
+        return projectId + "\n" + fileUri;
+    }
+
+    /**
+     * Builds the fingerprint of the upload from its content digest and parameters. The client library id is left out,
+     * so upgrading the library doesn't send everything again.
+     */
+    private static String fingerprint(final FileUploadParameterBuilder fileUploadParameterBuilder, final String digest)
+    {
+        final List<String> params = new ArrayList<>();
+        for (final NameValuePair param : fileUploadParameterBuilder.getNameValueList())
+        {
+            if (param.getValue() != null && !FileApiParameter.CLIENT_LIB_ID.equals(param.getName()))
+                params.add(param.getName() + "=" + param.getValue());
+        }
+        Collections.sort(params);
+
+        final StringBuilder fingerprint = new StringBuilder(digest);
+        for (final String param : params)
+            fingerprint.append('\n').append(param);
+        fingerprint.append("\ncharset=").append(fileUploadParameterBuilder.getCharset());
+
+        // hashed, so the index file doesn't reveal the directives
+        final MessageDigest messageDigest = createMessageDigest();
+        messageDigest.update(fingerprint.toString().getBytes(UTF_8));
+        return DigestingContentBody.toHex(messageDigest.digest());
+    }
+
+    private static String digest(final Path path) throws SmartlingApiException
+    {
+        final MessageDigest messageDigest = createMessageDigest();
+        try (InputStream inputStream = Files.newInputStream(path))
+        {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1)
+                messageDigest.update(buffer, 0, read);
+        }
+        catch (IOException e)
+        {
+            throw new SmartlingApiException(String.format("Failed to read file '%s'", path), e);
+        }
+        return DigestingContentBody.toHex(messageDigest.digest());
+    }
+
+    private static String digest(final ByteBuffer contents)
+    {
+        final MessageDigest messageDigest = createMessageDigest();
+        messageDigest.update(contents.duplicate());
+        return DigestingContentBody.toHex(messageDigest.digest());
+    }
+
+    private static MessageDigest createMessageDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // required on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.smartling.api.sdk.file;
+
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+
+/**
+ * Computes the digest of a file part while it is written into the request, so the content is read once.
+ * Writing the part again, e.g. on a retry, starts the digest over.
+ */
+class DigestingContentBody implements ContentBody
+{
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final ContentBody contentBody;
+    private final MessageDigest messageDigest;
+    private volatile byte[] digest;
+
+    DigestingContentBody(final ContentBody contentBody, final MessageDigest messageDigest)
+    {
+        this.contentBody = contentBody;
+        this.messageDigest = messageDigest;
+    }
+
+    /**
+     * @return lower case hex digest of the content last written, {@code NULL} if it has not been completely written
+     */
+    String getDigest()
+    {
+        final byte[] bytes = digest;
+        return bytes != null ? toHex(bytes) : null;
+    }
+
+    static String toHex(final byte[] bytes)
+    {
+        final char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException
+    {
+        digest = null;
+        messageDigest.reset();
+        final DigestOutputStream digestOutputStream = new DigestOutputStream(out, messageDigest);
+        contentBody.writeTo(digestOutputStream);
+        digestOutputStream.flush();
+        digest = messageDigest.digest();
+    }
+
+    @Override
+    public String getFilename()
+    {
+        return contentBody.getFilename();
+    }
+
+    @Override
+    public String getMimeType()
+    {
+        return contentBody.getMimeType();
+    }
+
+    @Override
+    public String getMediaType()
+    {
+        return contentBody.getMediaType();
+    }
+
+    @Override
+    public String getSubType()
+    {
+        return contentBody.getSubType();
+    }
+
+    @Override
+    public String getCharset()
+    {
+        return contentBody.getCharset();
+    }
+
+    @Override
+    public String getTransferEncoding()
+    {
+        return contentBody.getTransferEncoding();
+    }
+
+    @Override
+    public long getContentLength()
+    {
+        return contentBody.getContentLength();
+    }
+}
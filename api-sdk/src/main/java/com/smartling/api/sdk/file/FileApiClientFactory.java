@@ -0,0 +1,94 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.ProxyConfiguration;
+import com.smartling.api.sdk.UploadConfiguration;
+import com.smartling.api.sdk.auth.TokenProvider;
+import com.smartling.api.sdk.util.HedgedRequestExecutor;
+import com.smartling.api.sdk.util.HttpUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hands out lightweight {@link FileApiClient}s of any project. All of them share the connection pool, the token,
+ * the schedulers and the executors of the factory, the least recently used ones are evicted to keep the memory bounded.
+ * <pre>
+ * FileApiClientFactory factory = new FileApiClientImpl.Builder()
+ *         .authWithUserIdAndSecret(userId, userSecret)
+ *         .buildFactory();
+ * factory.forProject(projectId).getFileStatus(fileUri);
+ * </pre>
+ */
+public class FileApiClientFactory
+{
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final int DEFAULT_MAX_CACHED_PROJECTS = 1000;
+
+    private final TokenProvider tokenProvider;
+    private final ProxyConfiguration proxyConfiguration;
+    private final String baseUrl;
+    private final HttpUtils httpUtils;
+    private final HedgedRequestExecutor hedgedRequestExecutor;
+    private final UploadConfiguration uploadConfiguration;
+    private final Map<String, StreamingFileApiClient> clients;
+
+    FileApiClientFactory(final TokenProvider tokenProvider, final ProxyConfiguration proxyConfiguration, final String baseUrl, final HttpUtils httpUtils,
+                         final HedgedRequestExecutor hedgedRequestExecutor, final UploadConfiguration uploadConfiguration, final int maxCachedProjects)
+    {
+        this.tokenProvider = tokenProvider;
+        this.proxyConfiguration = proxyConfiguration;
+        this.baseUrl = baseUrl;
+        this.httpUtils = httpUtils;
+        this.hedgedRequestExecutor = hedgedRequestExecutor;
+        this.uploadConfiguration = uploadConfiguration;
+        this.clients = new LinkedHashMap<String, StreamingFileApiClient>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, StreamingFileApiClient> eldest)
+            {
+                return size() > maxCachedProjects;
+            }
+        };
+    }
+
+    /**
+     * @param projectId project to work on
+     * @return client of the project
+     */
+    public StreamingFileApiClient forProject(final String projectId)
+    {
+        if (projectId == null)
+            throw new IllegalArgumentException("projectId should not be null");
+
+        synchronized (clients)
+        {
+            StreamingFileApiClient client = clients.get(projectId);
+            if (client == null)
+            {
+                client = new FileApiClientImpl(tokenProvider, projectId, proxyConfiguration, baseUrl, httpUtils, hedgedRequestExecutor, uploadConfiguration);
+                clients.put(projectId, client);
+            }
+            return client;
+        }
+    }
+
+    public int getCachedProjectCount()
+    {
+        synchronized (clients)
+        {
+            return clients.size();
+        }
+    }
+
+    /**
+     * Closes the pooled connections, clients of the factory can't be used afterwards.
+     */
+    public void shutdown()
+    {
+        synchronized (clients)
+        {
+            clients.clear();
+        }
+        httpUtils.shutdown();
+    }
+}
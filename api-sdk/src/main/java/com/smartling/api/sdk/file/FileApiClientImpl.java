@@ -1,8 +1,19 @@
 package com.smartling.api.sdk.file;
 
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.smartling.api.sdk.BulkheadConfiguration;
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CancellationToken;
+import com.smartling.api.sdk.HedgingPolicy;
+import com.smartling.api.sdk.OperationClass;
 import com.smartling.api.sdk.ProxyConfiguration;
+import com.smartling.api.sdk.TimeoutConfiguration;
 import com.smartling.api.sdk.TokenProviderAwareClient;
+import com.smartling.api.sdk.UploadConfiguration;
 import com.smartling.api.sdk.auth.AuthApiClient;
 import com.smartling.api.sdk.auth.AuthenticationToken;
 import com.smartling.api.sdk.auth.ExistingTokenProvider;
@@ -24,17 +35,39 @@ import com.smartling.api.sdk.file.parameters.GetOriginalFileParameterBuilder;
 import com.smartling.api.sdk.file.response.ApiV2ResponseWrapper;
 import com.smartling.api.sdk.file.response.EmptyResponse;
 import com.smartling.api.sdk.file.response.FileImportSmartlingData;
+import com.smartling.api.sdk.file.response.Error;
 import com.smartling.api.sdk.file.response.FileList;
+import com.smartling.api.sdk.file.response.FileListItem;
 import com.smartling.api.sdk.file.response.FileLocaleStatus;
 import com.smartling.api.sdk.file.response.FileStatus;
+import com.smartling.api.sdk.file.response.Response;
+import com.smartling.api.sdk.util.CachingDnsResolver;
+import com.smartling.api.sdk.util.ContentCompression;
 import com.smartling.api.sdk.util.DateFormatter;
+import com.smartling.api.sdk.util.FairProjectScheduler;
+import com.smartling.api.sdk.util.HandshakeMonitoringSocketFactory;
+import com.smartling.api.sdk.util.HedgedRequestExecutor;
+import com.smartling.api.sdk.util.HttpUtils;
+import com.smartling.api.sdk.util.KeepAlivePolicy;
+import com.smartling.api.sdk.util.PriorityScheduler;
+import com.smartling.api.sdk.util.RequestDescriptor;
+import com.smartling.api.sdk.util.ResponseBuffer;
+import com.smartling.api.sdk.util.ResponseBufferPool;
+import com.smartling.api.sdk.util.ResponseStreamHandler;
+import com.smartling.web.api.v2.ResponseCode;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.CharEncoding;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.ContentBody;
@@ -43,12 +76,26 @@ import org.apache.http.entity.mime.content.InputStreamBody;
 import org.apache.http.entity.mime.content.StringBody;
 import org.apache.http.message.BasicNameValuePair;
 
+import javax.net.ssl.SSLContext;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static com.smartling.api.sdk.file.parameters.FileApiParameter.FILE_TYPES;
 import static com.smartling.api.sdk.file.parameters.FileApiParameter.FILE_URI;
@@ -58,8 +105,10 @@ import static com.smartling.api.sdk.file.parameters.FileApiParameter.LIMIT;
 import static com.smartling.api.sdk.file.parameters.FileApiParameter.OFFSET;
 import static com.smartling.api.sdk.file.parameters.FileApiParameter.URI_MASK;
 
-public class FileApiClientImpl extends TokenProviderAwareClient implements FileApiClient
+public class FileApiClientImpl extends TokenProviderAwareClient implements StreamingFileApiClient
 {
+    private static final Log logger = LogFactory.getLog(FileApiClientImpl.class);
+
     public static final String FILES_API_V2_FILE_DELETE = "/files-api/v2/projects/%s/file/delete";
     public static final String FILES_API_V2_FILE_RENAME = "/files-api/v2/projects/%s/file/rename";
     public static final String FILES_API_V2_FILE_LAST_MODIFIED = "/files-api/v2/projects/%s/file/last-modified";
@@ -74,15 +123,29 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
 
     private static final String REQUEST_PARAMS_SEPARATOR = "?";
     private static final String TEXT_PLAIN_TYPE = "text/plain";
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final List<Integer> UPLOAD_REJECTED_STATUSES = Arrays.asList(HttpStatus.SC_UNAUTHORIZED, HttpStatus.SC_FORBIDDEN, SC_TOO_MANY_REQUESTS);
+    // a buffer can't hold more than Integer.MAX_VALUE bytes
+    private static final long MAX_MAPPED_FILE_SIZE = Integer.MAX_VALUE;
 
     private String projectId;
+    private final UploadConfiguration uploadConfiguration;
 
-    private FileApiClientImpl(final TokenProvider tokenProvider, final String projectId, final ProxyConfiguration proxyConfiguration, final String baseUrl)
+    FileApiClientImpl(final TokenProvider tokenProvider, final String projectId, final ProxyConfiguration proxyConfiguration, final String baseUrl,
+                      final HttpUtils httpUtils, final HedgedRequestExecutor hedgedRequestExecutor, final UploadConfiguration uploadConfiguration)
     {
         this.tokenProvider = tokenProvider;
+        this.httpUtils = httpUtils;
         this.projectId = projectId;
         this.proxyConfiguration = proxyConfiguration;
         this.baseUrl = baseUrl;
+        this.hedgedRequestExecutor = hedgedRequestExecutor;
+        this.uploadConfiguration = uploadConfiguration;
+    }
+
+    @Override protected RequestDescriptor describe(final OperationClass operationClass)
+    {
+        return RequestDescriptor.of(operationClass, projectId);
     }
 
     @Override public UploadFileData uploadFile(File fileToUpload, FileUploadParameterBuilder fileUploadParameterBuilder) throws SmartlingApiException
@@ -98,15 +161,37 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
         return uploadFile(fileUploadParameterBuilder, inputStreamBody);
     }
 
+    @Override public UploadFileData uploadFile(Path fileToUpload, FileUploadParameterBuilder fileUploadParameterBuilder) throws SmartlingApiException
+    {
+        final ByteBuffer contents = map(fileToUpload);
+        if (contents == null)
+            return uploadFile(fileToUpload.toFile(), fileUploadParameterBuilder);
+
+        return uploadFile(contents, fileToUpload.getFileName().toString(), fileUploadParameterBuilder);
+    }
+
+    @Override public UploadFileData uploadFile(byte[] contents, String fileName, FileUploadParameterBuilder fileUploadParameterBuilder)
+            throws SmartlingApiException
+    {
+        return uploadFile(ByteBuffer.wrap(contents), fileName, fileUploadParameterBuilder);
+    }
+
+    @Override public UploadFileData uploadFile(ByteBuffer contents, String fileName, FileUploadParameterBuilder fileUploadParameterBuilder)
+            throws SmartlingApiException
+    {
+        ByteBufferBody byteBufferBody = new ByteBufferBody(contents, createContentType(fileUploadParameterBuilder.getFileType(), getCharset(fileUploadParameterBuilder)), fileName);
+        return uploadFile(fileUploadParameterBuilder, byteBufferBody);
+    }
+
     @Override public EmptyResponse deleteFile(String fileUri) throws SmartlingApiException
     {
         final HttpPost httpPost = createJsonPostRequest(
                 getApiUrl(FILES_API_V2_FILE_DELETE, baseUrl, projectId),
                 new FileDeletePayload(fileUri)
         );
-        final StringResponse response = executeRequest(httpPost);
+        final StringResponse response = executeRequest(httpPost, OperationClass.METADATA);
 
-        return getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<EmptyResponse>>()
+        return getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<EmptyResponse>>()
                 {
                 }
         ).retrieveData();
@@ -118,9 +203,9 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
                 getApiUrl(FILES_API_V2_FILE_RENAME, baseUrl, projectId),
                 new FileRenamePayload(fileUri, newFileUri)
         );
-        final StringResponse response = executeRequest(httpPost);
+        final StringResponse response = executeRequest(httpPost, OperationClass.METADATA);
 
-        return getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<EmptyResponse>>()
+        return getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<EmptyResponse>>()
                 {
                 }
         ).retrieveData();
@@ -133,9 +218,9 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
                 )
         )
         );
-        final StringResponse response = executeRequest(httpGet);
+        final StringResponse response = executeIdempotentRequest(httpGet, OperationClass.METADATA);
 
-        return getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<FileLastModified>>()
+        return getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<FileLastModified>>()
                 {
                 }
         ).retrieveData();
@@ -148,7 +233,7 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
 
         final HttpGet httpGet = new HttpGet(buildUrl(getApiUrl(FILES_API_V2_GET_FILE, getFileParameterBuilder.getLocale(), baseUrl, projectId), params));
 
-        final StringResponse response = executeRequest(httpGet);
+        final StringResponse response = executeRequest(httpGet, OperationClass.DOWNLOAD);
         if (response.isSuccess())
         {
             return response;
@@ -156,7 +241,7 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
         else
         {
             // Trying to get Smartling API exception from a json response
-            getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<EmptyResponse>>()
+            getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<EmptyResponse>>()
                     {
                     }
             ).retrieveData();
@@ -172,7 +257,7 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
 
         final HttpGet httpGet = new HttpGet(buildUrl(getApiUrl(FILES_API_V2_GET_ORIGINAL_FILE, baseUrl, projectId), params));
 
-        final StringResponse response = executeRequest(httpGet);
+        final StringResponse response = executeRequest(httpGet, OperationClass.DOWNLOAD);
         if (response.isSuccess())
         {
             return response;
@@ -180,7 +265,7 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
         else
         {
             // Trying to get Smartling API exception from a json response
-            getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<EmptyResponse>>()
+            getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<EmptyResponse>>()
                     {
                     }
             ).retrieveData();
@@ -195,22 +280,31 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
         final String params = buildFileListParams(fileListSearchParameterBuilder);
         final HttpGet httpGet = new HttpGet(buildUrl(getApiUrl(FILES_API_V2_FILES_LIST, baseUrl, projectId), params));
 
-        final StringResponse response = executeRequest(httpGet);
+        final StringResponse response = executeIdempotentRequest(httpGet, OperationClass.METADATA);
 
-        return getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<FileList>>()
+        return getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<FileList>>()
                 {
                 }
         ).retrieveData();
     }
 
+    @Override public int getFilesList(FileListSearchParameterBuilder fileListSearchParameterBuilder, FileListItemConsumer consumer)
+            throws SmartlingApiException
+    {
+        final String params = buildFileListParams(fileListSearchParameterBuilder);
+        final HttpGet httpGet = new HttpGet(buildUrl(getApiUrl(FILES_API_V2_FILES_LIST, baseUrl, projectId), params));
+
+        return executeRequest(httpGet, OperationClass.METADATA, new FileListStreamHandler(consumer));
+    }
+
     @Override public FileLocaleStatus getFileLocaleStatus(String fileUri, String locale) throws SmartlingApiException
     {
         final String params = buildParamsQuery(new BasicNameValuePair(FILE_URI, fileUri));
         final HttpGet httpGet = new HttpGet(buildUrl(getApiUrl(FILES_API_V2_FILE_LOCALE_STATUS, locale, baseUrl, projectId), params));
 
-        final StringResponse response = executeRequest(httpGet);
+        final StringResponse response = executeIdempotentRequest(httpGet, OperationClass.METADATA);
 
-        return getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<FileLocaleStatus>>()
+        return getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<FileLocaleStatus>>()
                 {
                 }
         ).retrieveData();
@@ -221,9 +315,9 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
         final String params = buildParamsQuery(new BasicNameValuePair(FILE_URI, fileUri));
         final HttpGet httpGet = new HttpGet(buildUrl(getApiUrl(FILES_API_V2_FILE_STATUS, baseUrl, projectId), params));
 
-        final StringResponse response = executeRequest(httpGet);
+        final StringResponse response = executeIdempotentRequest(httpGet, OperationClass.METADATA);
 
-        return getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<FileStatus>>()
+        return getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<FileStatus>>()
                 {
                 }
         ).retrieveData();
@@ -233,10 +327,35 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
             throws SmartlingApiException
     {
         FileBody fileBody = new FileBody(fileImportParameterBuilder.getFile(), createContentType(fileImportParameterBuilder.getFileType(), Charset.forName(fileImportParameterBuilder.getCharset())), fileImportParameterBuilder.getFile().getName());
+        return importTranslations(fileImportParameterBuilder, fileBody);
+    }
+
+    @Override public FileImportSmartlingData importTranslations(InputStream inputStream, String fileName, FileImportParameterBuilder fileImportParameterBuilder)
+            throws SmartlingApiException
+    {
+        InputStreamBody inputStreamBody = new InputStreamBody(inputStream, createContentType(fileImportParameterBuilder.getFileType(), Charset.forName(fileImportParameterBuilder.getCharset())), fileName);
+        return importTranslations(fileImportParameterBuilder, inputStreamBody);
+    }
+
+    @Override public FileImportSmartlingData importTranslations(ReadableByteChannel channel, String fileName, FileImportParameterBuilder fileImportParameterBuilder)
+            throws SmartlingApiException
+    {
+        return importTranslations(Channels.newInputStream(channel), fileName, fileImportParameterBuilder);
+    }
+
+    @Override public FileImportSmartlingData importTranslations(ByteBuffer contents, String fileName, FileImportParameterBuilder fileImportParameterBuilder)
+            throws SmartlingApiException
+    {
+        ByteBufferBody byteBufferBody = new ByteBufferBody(contents, createContentType(fileImportParameterBuilder.getFileType(), Charset.forName(fileImportParameterBuilder.getCharset())), fileName);
+        return importTranslations(fileImportParameterBuilder, byteBufferBody);
+    }
 
+    private FileImportSmartlingData importTranslations(FileImportParameterBuilder fileImportParameterBuilder, ContentBody contentBody)
+            throws SmartlingApiException
+    {
         final List<NameValuePair> paramsList = fileImportParameterBuilder.getNameValueList();
 
-        final MultipartEntityBuilder multipartEntityBuilder = MultipartEntityBuilder.create().addPart(FileApiParameter.FILE, fileBody);
+        final MultipartEntityBuilder multipartEntityBuilder = MultipartEntityBuilder.create().addPart(FileApiParameter.FILE, contentBody);
 
         if (CollectionUtils.isNotEmpty(paramsList))
         {
@@ -258,19 +377,40 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
         final HttpPost httpPost = new HttpPost(baseUrl + String.format(FILES_API_V2_FILE_IMPORT, projectId, fileImportParameterBuilder.getLocale()));
         httpPost.setEntity(multipartEntityBuilder.build());
 
-        final StringResponse response = executeRequest(httpPost);
+        final StringResponse response = executeUpload(httpPost, fileImportParameterBuilder.getFileUri(), fileImportParameterBuilder.getFileType(),
+                isRepeatable(contentBody));
 
-        return getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<FileImportSmartlingData>>()
+        return getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<FileImportSmartlingData>>()
                 {
                 }
         ).retrieveData();
     }
 
+    /**
+     * @return the file mapped into memory, {@code NULL} if it is too large for a buffer
+     */
+    private static ByteBuffer map(final Path path) throws SmartlingApiException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() > MAX_MAPPED_FILE_SIZE)
+            {
+                logger.debug(String.format("File '%s' of %d bytes is too large to be mapped, it is sent from disk", path, channel.size()));
+                return null;
+            }
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        catch (IOException e)
+        {
+            throw new SmartlingApiException(String.format("Failed to map file '%s'", path), e);
+        }
+    }
+
     private Charset getCharset(final FileUploadParameterBuilder fileUploadParameterBuilder)
     {
         final String charsetName = fileUploadParameterBuilder.getCharset();
-        return StringUtils.isEmpty(charsetName)?
-                Charset.forName(charsetName) : null;
+        return StringUtils.isEmpty(charsetName) ? null : Charset.forName(charsetName);
     }
 
     private ContentType createContentType(FileType fileType, Charset charset)
@@ -285,8 +425,10 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
     {
         final List<NameValuePair> paramsList = fileUploadParameterBuilder.getNameValueList();
 
+        final ContentBody filePart = transcode(contentBody, fileUploadParameterBuilder);
+        final DigestingContentBody digestingContentBody = createDigestingContentBody(filePart);
         final MultipartEntityBuilder multipartEntityBuilder = MultipartEntityBuilder.create()
-                                                                                    .addPart(FileApiParameter.FILE, contentBody);
+                                                                                    .addPart(FileApiParameter.FILE, digestingContentBody != null ? digestingContentBody : filePart);
 
         if (CollectionUtils.isNotEmpty(paramsList))
         {
@@ -308,12 +450,164 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
         final HttpPost httpPost = new HttpPost(baseUrl + String.format(FILES_API_V2_FILE_UPLOAD, projectId));
         httpPost.setEntity(multipartEntityBuilder.build());
 
-        final StringResponse response = executeRequest(httpPost);
+        final StringResponse response = executeUpload(httpPost, fileUploadParameterBuilder.getFileUri(), fileUploadParameterBuilder.getFileType(),
+                isRepeatable(contentBody));
 
-        return getApiV2Response(response.getContents(), new TypeToken<ApiV2ResponseWrapper<UploadFileData>>()
+        final UploadFileData uploadFileData = getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<UploadFileData>>()
                 {
                 }
         ).retrieveData();
+        if (digestingContentBody != null && uploadFileData != null)
+            uploadFileData.setContentDigest(digestingContentBody.getDigest());
+        return uploadFileData;
+    }
+
+    private ContentBody transcode(final ContentBody contentBody, final FileUploadParameterBuilder fileUploadParameterBuilder)
+    {
+        if (uploadConfiguration == null || uploadConfiguration.getTargetCharset() == null || !fileUploadParameterBuilder.getFileType().isTextFormat())
+            return contentBody;
+
+        final Charset declaredCharset = getCharset(fileUploadParameterBuilder);
+        return new TranscodingContentBody(contentBody, declaredCharset != null ? declaredCharset : Charset.forName(CharEncoding.UTF_8),
+                Charset.forName(uploadConfiguration.getTargetCharset()));
+    }
+
+    private DigestingContentBody createDigestingContentBody(final ContentBody contentBody) throws SmartlingApiException
+    {
+        if (uploadConfiguration == null || uploadConfiguration.getDigestAlgorithm() == null)
+            return null;
+
+        try
+        {
+            return new DigestingContentBody(contentBody, MessageDigest.getInstance(uploadConfiguration.getDigestAlgorithm()));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new SmartlingApiException(String.format("Unsupported digest algorithm '%s'", uploadConfiguration.getDigestAlgorithm()), e);
+        }
+    }
+
+    private StringResponse executeUpload(final HttpPost httpPost, final String fileUri, final FileType fileType, final boolean repeatable)
+            throws SmartlingApiException
+    {
+        if (uploadConfiguration == null)
+            return executeRequest(httpPost, OperationClass.UPLOAD);
+
+        if (uploadConfiguration.isValidateBeforeUpload())
+            validateBeforeUpload(fileUri);
+
+        if (uploadConfiguration.isCompressTextFormats() && fileType != null && fileType.isTextFormat())
+            httpPost.setEntity(new GzipCompressingEntity(httpPost.getEntity()));
+
+        if (uploadConfiguration.getProgressListener() != null)
+            httpPost.setEntity(new ProgressTrackingEntity(httpPost.getEntity(), fileUri, uploadConfiguration.getProgressListener()));
+
+        final HttpEntity entity = httpPost.getEntity();
+        final RequestDescriptor uploadDescriptor = describe(OperationClass.UPLOAD);
+        final RequestDescriptor requestDescriptor = uploadConfiguration.isExpectContinue(entity.getContentLength()) ? uploadDescriptor.withExpectContinue() : uploadDescriptor;
+
+        final int maxAttempts = repeatable ? Math.max(1, uploadConfiguration.getMaxAttempts()) : 1;
+        long retryDelayMillis = Math.min(uploadConfiguration.getRetryDelayMillis(), uploadConfiguration.getMaxRetryDelayMillis());
+        HttpPost request = httpPost;
+        for (int attempt = 1; ; attempt++)
+        {
+            try
+            {
+                return executeRequest(request, requestDescriptor);
+            }
+            catch (SmartlingApiException e)
+            {
+                if (attempt >= maxAttempts || !isRetriable(e))
+                    throw e;
+
+                logger.warn(String.format("Upload of '%s' failed on attempt %d, sending it again: %s", fileUri, attempt, e.getMessage()));
+                pause(retryDelayMillis, e);
+                retryDelayMillis = Math.min(retryDelayMillis * 2, uploadConfiguration.getMaxRetryDelayMillis());
+
+                // the failed request already carries the headers of its attempt
+                request = new HttpPost(httpPost.getURI());
+                request.setEntity(entity);
+            }
+        }
+    }
+
+    private static boolean isRetriable(final SmartlingApiException e)
+    {
+        final CallContext callContext = CallContext.current();
+        return e.getCause() instanceof IOException && (callContext == null || !callContext.isDeadlineExceeded() && !callContext.isCancelled());
+    }
+
+    /**
+     * Pauses before the next attempt, only until the call is cancelled.
+     * @throws SmartlingApiException the failure of the last attempt if the call is cancelled meanwhile
+     * or its deadline runs out before the pause ends, there is no point in waiting for it then
+     */
+    private static void pause(final long millis, final SmartlingApiException failure) throws SmartlingApiException
+    {
+        final CallContext callContext = CallContext.current();
+        if (callContext != null && callContext.getRemainingMillis() <= millis)
+            throw failure;
+
+        final CancellationToken cancellationToken = callContext != null ? callContext.getCancellationToken() : null;
+        try
+        {
+            if (waitOrCancel(cancellationToken, millis))
+                throw failure;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+    /**
+     * @return whether the call was cancelled while waiting
+     */
+    private static boolean waitOrCancel(final CancellationToken cancellationToken, final long millis) throws InterruptedException
+    {
+        if (cancellationToken != null)
+            return cancellationToken.awaitCancellation(millis);
+
+        Thread.sleep(millis);
+        return false;
+    }
+
+    /**
+     * The body of streams can't be read again, everything else is sent again on failure.
+     */
+    private static boolean isRepeatable(final ContentBody contentBody)
+    {
+        return !(contentBody instanceof InputStreamBody);
+    }
+
+    /**
+     * Asks for the status of the file with the token the upload is going to use. A missing file is fine,
+     * but a rejected token, a project out of reach or throttling fail before the body is sent.
+     */
+    private void validateBeforeUpload(final String fileUri) throws SmartlingApiException
+    {
+        final String params = buildParamsQuery(new BasicNameValuePair(FILE_URI, fileUri));
+        final HttpGet httpGet = new HttpGet(buildUrl(getApiUrl(FILES_API_V2_FILE_STATUS, baseUrl, projectId), params));
+
+        final StringResponse response = executeRequest(httpGet, OperationClass.METADATA);
+        try
+        {
+            final HttpUtils.ResponseDetails details = HttpUtils.getResponseDetails().get();
+            if (response.isSuccess() || details == null || !UPLOAD_REJECTED_STATUSES.contains(details.getStatusCode()))
+                return;
+
+            // Trying to get Smartling API exception from a json response
+            getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<EmptyResponse>>()
+                    {
+                    }
+            ).retrieveData();
+            throw new SmartlingApiException(String.format("Upload rejected before sending the file, status %d", details.getStatusCode()));
+        }
+        finally
+        {
+            response.close();
+        }
     }
 
     private String buildParamsQuery(NameValuePair... nameValuePairs)
@@ -385,19 +679,165 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
         return baseFileApiUrl + String.format(url, projectId, locale);
     }
 
+    /**
+     * Parses the listing envelope with a streaming reader, handing over each item as soon as it is read,
+     * so memory use doesn't depend on the size of the page.
+     */
+    private static class FileListStreamHandler implements ResponseStreamHandler<Integer>
+    {
+        private static final Type ERRORS_TYPE = new TypeToken<List<Error>>()
+        {
+        }.getType();
+
+        private final FileListItemConsumer consumer;
+
+        private FileListStreamHandler(final FileListItemConsumer consumer)
+        {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public Integer handleStream(final InputStream body, final String encoding) throws IOException, SmartlingApiException
+        {
+            final JsonReader reader = new JsonReader(new InputStreamReader(body, encoding));
+            ResponseCode code = null;
+            List<Error> errors = null;
+            int totalCount = 0;
+            try
+            {
+                reader.beginObject();
+                while (reader.hasNext())
+                {
+                    if (!"response".equals(reader.nextName()))
+                    {
+                        reader.skipValue();
+                        continue;
+                    }
+
+                    reader.beginObject();
+                    while (reader.hasNext())
+                    {
+                        switch (reader.nextName())
+                        {
+                            case "code":
+                                code = RESPONSE_GSON.fromJson(reader, ResponseCode.class);
+                                break;
+                            case "errors":
+                                errors = RESPONSE_GSON.fromJson(reader, ERRORS_TYPE);
+                                break;
+                            case "data":
+                                totalCount = readData(reader);
+                                break;
+                            default:
+                                reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                reader.endObject();
+            }
+            catch (JsonParseException | IllegalStateException | NumberFormatException | MalformedJsonException e)
+            {
+                // the reader fails on unexpected tokens with unchecked exceptions, and on malformed JSON with an IOException
+                // which must not be taken for a network failure
+                throw new SmartlingApiException("Can't parse file list response as JSON", e);
+            }
+
+            if (code == null)
+                throw new SmartlingApiException("File list response hasn't been parsed correctly");
+            new Response<FileList>(code, errors, null).retrieveData();
+            return totalCount;
+        }
+
+        @Override
+        public Integer handleResponse(final StringResponse response) throws SmartlingApiException
+        {
+            final FileList fileList = getApiV2Response(response, new TypeToken<ApiV2ResponseWrapper<FileList>>()
+                    {
+                    }
+            ).retrieveData();
+            if (fileList.getItems() != null)
+            {
+                for (final FileListItem item : fileList.getItems())
+                    consumer.accept(item);
+            }
+            return fileList.getTotalCount();
+        }
+
+        private int readData(final JsonReader reader) throws IOException
+        {
+            if (reader.peek() == JsonToken.NULL)
+            {
+                reader.nextNull();
+                return 0;
+            }
+
+            int totalCount = 0;
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                final String name = reader.nextName();
+                if ("totalCount".equals(name))
+                {
+                    totalCount = reader.nextInt();
+                }
+                else if ("items".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY)
+                {
+                    reader.beginArray();
+                    while (reader.hasNext())
+                        consumer.accept(RESPONSE_GSON.<FileListItem>fromJson(reader, FileListItem.class));
+                    reader.endArray();
+                }
+                else
+                {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return totalCount;
+        }
+    }
+
     public static class Builder
     {
         private TokenProvider tokenProvider;
+        private String userId;
+        private String userSecret;
 
         private final String projectId;
         private ProxyConfiguration proxyConfiguration;
         private String baseSmartlingApiUrl;
+        private HedgingPolicy hedgingPolicy;
+        private TimeoutConfiguration timeoutConfiguration;
+        private BulkheadConfiguration bulkheadConfiguration;
+        private PriorityScheduler priorityScheduler;
+        private FairProjectScheduler fairProjectScheduler;
+        private Integer maxConnections;
+        private int maxCachedProjects;
+        private LayeredConnectionSocketFactory sslSocketFactory;
+        private CachingDnsResolver dnsResolver;
+        private int warmUpConnections;
+        private KeepAlivePolicy keepAlivePolicy;
+        private UploadConfiguration uploadConfiguration;
+        private ContentCompression contentCompression;
+        private ResponseBuffer responseBuffer;
+        private ResponseBufferPool responseBufferPool;
+
+        /**
+         * Creates a builder of a {@link FileApiClientFactory} serving any project.
+         */
+        public Builder()
+        {
+            this(null);
+        }
 
         public Builder(String projectId)
         {
             this.projectId = projectId;
             baseSmartlingApiUrl = DEFAULT_BASE_URL;
             proxyConfiguration = null;
+            timeoutConfiguration = new TimeoutConfiguration();
+            maxCachedProjects = FileApiClientFactory.DEFAULT_MAX_CACHED_PROJECTS;
         }
 
         public Builder baseSmartlingApiUrl(String baseAuthApiUrl)
@@ -412,31 +852,301 @@ public class FileApiClientImpl extends TokenProviderAwareClient implements FileA
             return this;
         }
 
+        /**
+         * Enables hedging of idempotent status and listing calls. Disabled by default.
+         * @param hedgingPolicy hedging policy, {@code NULL} switches hedging off
+         * @return the current instance of a builder
+         */
+        public Builder hedgingPolicy(HedgingPolicy hedgingPolicy)
+        {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         * Default connect, connection request and socket timeouts of every call including authentication.
+         * Deadlines of a {@link com.smartling.api.sdk.CallContext} shorten them per call.
+         * @param timeoutConfiguration timeouts, {@code NULL} leaves them undefined
+         * @return the current instance of a builder
+         */
+        public Builder timeoutConfiguration(TimeoutConfiguration timeoutConfiguration)
+        {
+            this.timeoutConfiguration = timeoutConfiguration;
+            return this;
+        }
+
+        /**
+         * Isolates uploads, downloads, metadata and authentication calls from each other.
+         * Without bulkheads all calls share one unbounded pool.
+         * @param bulkheadConfiguration limits per {@link OperationClass}
+         * @return the current instance of a builder
+         */
+        public Builder bulkheadConfiguration(BulkheadConfiguration bulkheadConfiguration)
+        {
+            this.bulkheadConfiguration = bulkheadConfiguration;
+            return this;
+        }
+
+        /**
+         * Lets interactive calls jump the queue and throttles batch calls while interactive ones are running,
+         * see {@link com.smartling.api.sdk.CallContext#priority(com.smartling.api.sdk.CallPriority)}.
+         * @param priorityScheduler scheduler, can be shared by several clients
+         * @return the current instance of a builder
+         */
+        public Builder priorityScheduler(PriorityScheduler priorityScheduler)
+        {
+            this.priorityScheduler = priorityScheduler;
+            return this;
+        }
+
+        /**
+         * Shares the transport fairly with the clients of other projects using the same scheduler.
+         * @param fairProjectScheduler scheduler shared by the clients of all the projects
+         * @return the current instance of a builder
+         */
+        public Builder fairProjectScheduler(FairProjectScheduler fairProjectScheduler)
+        {
+            this.fairProjectScheduler = fairProjectScheduler;
+            return this;
+        }
+
+        /**
+         * Keeps connections alive in a pool shared by all the calls of the client, or of all the clients of a factory.
+         * Without a pool every call opens a new connection. Unless set, {@link #build()} pools the {@link #warmUp(int)} connections only
+         * and {@link #buildFactory()} uses {@link FileApiClientFactory#DEFAULT_MAX_CONNECTIONS}, or more if more are warmed up.
+         * @param maxConnections size of the pool, zero or less switches pooling, and so warm-up, off for both
+         * @return the current instance of a builder
+         */
+        public Builder maxConnections(int maxConnections)
+        {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * @param maxCachedProjects number of project clients a factory keeps, the least recently used ones are evicted
+         * @return the current instance of a builder
+         */
+        public Builder maxCachedProjects(int maxCachedProjects)
+        {
+            this.maxCachedProjects = maxCachedProjects;
+            return this;
+        }
+
+        /**
+         * Creates TLS connections with the given context, resuming its cached sessions. Handshakes are counted by
+         * a {@link HandshakeMonitoringSocketFactory}, use {@link #sslSocketFactory(LayeredConnectionSocketFactory)} to read the counters.
+         * @param sslContext context reused by all the connections
+         * @return the current instance of a builder
+         */
+        public Builder sslContext(SSLContext sslContext)
+        {
+            return sslSocketFactory(new HandshakeMonitoringSocketFactory(sslContext));
+        }
+
+        /**
+         * @param sslSocketFactory TLS socket factory reused by all the connections, can be shared by several clients
+         * @return the current instance of a builder
+         */
+        public Builder sslSocketFactory(LayeredConnectionSocketFactory sslSocketFactory)
+        {
+            this.sslSocketFactory = sslSocketFactory;
+            return this;
+        }
+
+        /**
+         * Caches resolved addresses of the API host for pooled connections.
+         * @param ttl how long resolved addresses are used
+         * @param unit unit of the ttl
+         * @return the current instance of a builder
+         */
+        public Builder dnsCacheTtl(long ttl, TimeUnit unit)
+        {
+            this.dnsResolver = new CachingDnsResolver(ttl, unit);
+            return this;
+        }
+
+        /**
+         * Warms the client up on build: opens pooled connections to the API host and fetches the first token,
+         * so the first call runs at steady-state latency. Connections are pooled unless {@link #maxConnections(int)} switches pooling off.
+         * @param connections number of connections to open
+         * @return the current instance of a builder
+         */
+        public Builder warmUp(int connections)
+        {
+            this.warmUpConnections = connections;
+            return this;
+        }
+
+        /**
+         * Limits how long pooled connections are kept alive and evicts idle ones in background.
+         * @param keepAlivePolicy policy, can be shared by several clients
+         * @return the current instance of a builder
+         */
+        public Builder keepAlivePolicy(KeepAlivePolicy keepAlivePolicy)
+        {
+            this.keepAlivePolicy = keepAlivePolicy;
+            return this;
+        }
+
+        /**
+         * Tunes how uploads and imports are sent: fail fast before sending large bodies, compression, transcoding,
+         * digests, progress and retries, see {@link UploadConfiguration}.
+         * @param uploadConfiguration upload configuration, {@code NULL} sends bodies once, right away and as they are
+         * @return the current instance of a builder
+         */
+        public Builder uploadConfiguration(UploadConfiguration uploadConfiguration)
+        {
+            this.uploadConfiguration = uploadConfiguration;
+            return this;
+        }
+
+        /**
+         * Asks for gzip or deflate compressed responses per operation class and decompresses them while they are read.
+         * @param contentCompression content compression, can be shared by several clients to sum up their bytes
+         * @return the current instance of a builder
+         */
+        public Builder contentCompression(ContentCompression contentCompression)
+        {
+            this.contentCompression = contentCompression;
+            return this;
+        }
+
+        /**
+         * Keeps response bodies in the heap up to a threshold and buffers larger ones in temporary files. Close responses of
+         * {@link FileApiClient#getFile(GetFileParameterBuilder)} and {@link FileApiClient#getOriginalFile(GetOriginalFileParameterBuilder)}
+         * to delete their files.
+         * @param responseBuffer response buffer, can be shared by several clients to cap their heap together
+         * @return the current instance of a builder
+         */
+        public Builder responseBuffer(ResponseBuffer responseBuffer)
+        {
+            this.responseBuffer = responseBuffer;
+            return this;
+        }
+
+        /**
+         * Reads the JSON responses of status, listing, upload and authentication calls into reused buffers, e.g. for frequent status polling.
+         * @param responseBufferPool buffer pool, can be shared by several clients
+         * @return the current instance of a builder
+         */
+        public Builder responseBufferPool(ResponseBufferPool responseBufferPool)
+        {
+            this.responseBufferPool = responseBufferPool;
+            return this;
+        }
+
         public Builder authWithUserIdAndSecret(String userId, String userSecret)
         {
-            tokenProvider = new OAuthTokenProvider(userId, userSecret, new AuthApiClient(proxyConfiguration, baseSmartlingApiUrl));
+            this.tokenProvider = null;
+            this.userId = userId;
+            this.userSecret = userSecret;
             return this;
         }
 
         public Builder authWithExistingToken(AuthenticationToken authenticationToken)
         {
-            tokenProvider = new ExistingTokenProvider(authenticationToken);
-            return this;
+            return withCustomTokenProvider(new ExistingTokenProvider(authenticationToken));
         }
 
         public Builder withCustomTokenProvider(TokenProvider tokenProvider)
         {
             this.tokenProvider = tokenProvider;
+            this.userId = null;
+            this.userSecret = null;
             return this;
         }
 
+        /**
+         * @return client of the project, a {@link StreamingFileApiClient}
+         */
         public FileApiClient build()
         {
-            sanityCheck();
-            return new FileApiClientImpl(tokenProvider, projectId, proxyConfiguration, baseSmartlingApiUrl);
+            if (projectId == null) throw new IllegalArgumentException("Wrong Configuration. projectId should not be null");
+
+            final HttpUtils httpUtils = createHttpUtils(getPooledConnections(0));
+            final TokenProvider clientTokenProvider = createTokenProvider(httpUtils);
+
+            sanityCheck(clientTokenProvider);
+            warmUp(httpUtils, clientTokenProvider);
+            return new FileApiClientImpl(clientTokenProvider, projectId, proxyConfiguration, baseSmartlingApiUrl, httpUtils, createHedgedRequestExecutor(),
+                    uploadConfiguration);
+        }
+
+        /**
+         * Builds a factory of clients of any project, sharing the connection pool, token, schedulers and executors.
+         * @return factory of project clients
+         */
+        public FileApiClientFactory buildFactory()
+        {
+            final HttpUtils httpUtils = createHttpUtils(getPooledConnections(FileApiClientFactory.DEFAULT_MAX_CONNECTIONS));
+            final TokenProvider clientTokenProvider = createTokenProvider(httpUtils);
+
+            sanityCheck(clientTokenProvider);
+            warmUp(httpUtils, clientTokenProvider);
+            return new FileApiClientFactory(clientTokenProvider, proxyConfiguration, baseSmartlingApiUrl, httpUtils, createHedgedRequestExecutor(),
+                    uploadConfiguration, maxCachedProjects);
+        }
+
+        /**
+         * @param defaultMaxConnections size of the pool unless set
+         * @return size of the pool, zero or less for no pool
+         */
+        private int getPooledConnections(int defaultMaxConnections)
+        {
+            if (maxConnections != null)
+                return maxConnections;
+
+            return Math.max(defaultMaxConnections, warmUpConnections);
+        }
+
+        private HttpUtils createHttpUtils(int pooledConnections)
+        {
+            final HttpUtils httpUtils = new HttpUtils();
+            httpUtils.setTimeoutConfiguration(timeoutConfiguration);
+            httpUtils.setSslSocketFactory(sslSocketFactory);
+            httpUtils.setDnsResolver(dnsResolver);
+            httpUtils.setKeepAlivePolicy(keepAlivePolicy);
+            httpUtils.setContentCompression(contentCompression);
+            httpUtils.setResponseBuffer(responseBuffer);
+            httpUtils.setResponseBufferPool(responseBufferPool);
+            httpUtils.setBulkheadConfiguration(bulkheadConfiguration);
+            httpUtils.setPriorityScheduler(priorityScheduler);
+            httpUtils.setFairProjectScheduler(fairProjectScheduler);
+            httpUtils.setMaxPooledConnections(pooledConnections);
+            return httpUtils;
+        }
+
+        private TokenProvider createTokenProvider(HttpUtils httpUtils)
+        {
+            if (tokenProvider == null && userId != null)
+                return new OAuthTokenProvider(userId, userSecret, new AuthApiClient(proxyConfiguration, baseSmartlingApiUrl, httpUtils));
+
+            return tokenProvider;
+        }
+
+        private void warmUp(HttpUtils httpUtils, TokenProvider clientTokenProvider)
+        {
+            if (warmUpConnections <= 0)
+                return;
+
+            httpUtils.warmUp(baseSmartlingApiUrl, warmUpConnections, proxyConfiguration);
+            try
+            {
+                clientTokenProvider.getAuthenticationToken();
+            }
+            catch (SmartlingApiException e)
+            {
+                logger.warn(String.format("Token is not fetched on warm-up: %s", e.getMessage()));
+            }
+        }
+
+        private HedgedRequestExecutor createHedgedRequestExecutor()
+        {
+            return hedgingPolicy != null ? new HedgedRequestExecutor(hedgingPolicy) : null;
         }
 
-        private void sanityCheck()
+        private void sanityCheck(TokenProvider tokenProvider)
         {
             if (baseSmartlingApiUrl == null) throw new IllegalArgumentException("Wrong Configuration. baseUrl should not be null");
             if (tokenProvider == null) throw new IllegalArgumentException("Wrong Configuration. tokenProvider should not be null");
@@ -0,0 +1,428 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import com.smartling.api.sdk.file.parameters.FileListSearchParameterBuilder;
+import com.smartling.api.sdk.file.response.FileListItem;
+import com.smartling.api.sdk.util.DateFormatter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Read-only listing of the files of a project kept in compact form, for routing by file URI without holding a
+ * {@link FileListItem} per file.
+ * <p>
+ * The URIs are sorted and front coded into one shared byte arena: every URI stores only the bytes following the prefix it
+ * shares with the previous one, with a full URI at the start of every block of {@value #BLOCK_SIZE}. The file type is kept as
+ * its ordinal and the last upload time as epoch milliseconds. The listing doesn't tell the locales of a file, so they aren't kept.
+ * A URI is found by a binary search over the blocks and a scan of one block, URIs starting with a prefix by a scan from there.
+ * <p>
+ * A catalog is immutable and safe to share between threads.
+ */
+public class FileCatalog
+{
+    public static final int BLOCK_SIZE = 16;
+    public static final long UNKNOWN_TIME = Long.MIN_VALUE;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte UNKNOWN_FILE_TYPE = -1;
+    private static final FileType[] FILE_TYPES = FileType.values();
+
+    private final int size;
+    private final byte[] uriArena;
+    private final int[] blockOffsets;
+    private final byte[] fileTypes;
+    private final long[] lastUploaded;
+
+    private FileCatalog(final int size, final byte[] uriArena, final int[] blockOffsets, final byte[] fileTypes, final long[] lastUploaded)
+    {
+        this.size = size;
+        this.uriArena = uriArena;
+        this.blockOffsets = blockOffsets;
+        this.fileTypes = fileTypes;
+        this.lastUploaded = lastUploaded;
+    }
+
+    /**
+     * Lists all the files matching the search page by page, parsing every page straight into the catalog.
+     * @param fileApiClient client listing the files
+     * @param searchParameters search, its offset is where the listing starts
+     * @param pageSize number of files requested per call
+     */
+    public static FileCatalog load(final StreamingFileApiClient fileApiClient, final FileListSearchParameterBuilder searchParameters, final int pageSize)
+            throws SmartlingApiException
+    {
+        final Builder builder = new Builder();
+        int offset = searchParameters.getOffset() != null ? searchParameters.getOffset() : 0;
+        while (true)
+        {
+            final int listed = builder.pending.size();
+            final int totalCount = fileApiClient.getFilesList(new FileListSearchParameterBuilder()
+                    .withUriMask(searchParameters.getUriMask())
+                    .withFileTypes(searchParameters.getFileTypes())
+                    .withLastUploadedAfter(searchParameters.getLastUploadedAfter())
+                    .withLastUploadedBefore(searchParameters.getLastUploadedBefore())
+                    .withOffset(offset)
+                    .withLimit(pageSize), builder);
+
+            final int pageItems = builder.pending.size() - listed;
+            offset += pageItems;
+            if (pageItems == 0 || offset >= totalCount)
+                return builder.build();
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return bytes taken by all the URIs of the catalog
+     */
+    public int getUriArenaBytes()
+    {
+        return uriArena.length;
+    }
+
+    public boolean contains(final String fileUri)
+    {
+        return indexOf(fileUri.getBytes(UTF_8)) >= 0;
+    }
+
+    /**
+     * @return the file with the URI, {@code NULL} if it isn't in the catalog
+     */
+    public Entry get(final String fileUri)
+    {
+        final int index = indexOf(fileUri.getBytes(UTF_8));
+        return index >= 0 ? new Entry(index, fileUri) : null;
+    }
+
+    /**
+     * @return the files whose URI starts with the prefix, ordered by URI
+     */
+    public List<Entry> findByPrefix(final String prefix)
+    {
+        final byte[] key = prefix.getBytes(UTF_8);
+        final List<Entry> entries = new ArrayList<>();
+        final Cursor cursor = new Cursor(Math.max(0, findBlock(key)));
+        while (cursor.next())
+        {
+            if (cursor.startsWith(key))
+                entries.add(new Entry(cursor.index, cursor.uri()));
+            else if (cursor.compareTo(key) > 0)
+                break;
+        }
+        return entries;
+    }
+
+    /**
+     * @return all the files ordered by URI
+     */
+    public List<Entry> entries()
+    {
+        return findByPrefix("");
+    }
+
+    private int indexOf(final byte[] key)
+    {
+        final int block = findBlock(key);
+        if (block < 0)
+            return -1;
+
+        final Cursor cursor = new Cursor(block);
+        for (int scanned = 0; scanned < BLOCK_SIZE && cursor.next(); scanned++)
+        {
+            final int comparison = cursor.compareTo(key);
+            if (comparison == 0)
+                return cursor.index;
+            if (comparison > 0)
+                break;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the last block whose first URI isn't greater than the key, -1 if the key is before all of them
+     */
+    private int findBlock(final byte[] key)
+    {
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        int found = -1;
+        while (low <= high)
+        {
+            final int middle = (low + high) >>> 1;
+            final Cursor cursor = new Cursor(middle);
+            cursor.next();
+            if (cursor.compareTo(key) <= 0)
+            {
+                found = middle;
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Decodes the front coded URIs one after another from the start of a block.
+     */
+    private class Cursor
+    {
+        private int position;
+        private int index;
+        private byte[] uri = new byte[128];
+        private int uriLength;
+
+        private Cursor(final int block)
+        {
+            this.position = blockOffsets.length > 0 ? blockOffsets[block] : 0;
+            this.index = block * BLOCK_SIZE - 1;
+        }
+
+        private boolean next()
+        {
+            if (index + 1 >= size)
+                return false;
+
+            index++;
+            final int shared = readVarInt();
+            final int suffixLength = readVarInt();
+            uriLength = shared + suffixLength;
+            if (uriLength > uri.length)
+                uri = Arrays.copyOf(uri, Math.max(uriLength, uri.length * 2));
+            System.arraycopy(uriArena, position, uri, shared, suffixLength);
+            position += suffixLength;
+            return true;
+        }
+
+        private int readVarInt()
+        {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = uriArena[position++];
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            }
+            while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private int compareTo(final byte[] key)
+        {
+            return compare(uri, uriLength, key, key.length);
+        }
+
+        private boolean startsWith(final byte[] prefix)
+        {
+            if (uriLength < prefix.length)
+                return false;
+            for (int i = 0; i < prefix.length; i++)
+            {
+                if (uri[i] != prefix[i])
+                    return false;
+            }
+            return true;
+        }
+
+        private String uri()
+        {
+            return new String(uri, 0, uriLength, UTF_8);
+        }
+    }
+
+    private static int compare(final byte[] left, final int leftLength, final byte[] right, final int rightLength)
+    {
+        final int length = Math.min(leftLength, rightLength);
+        for (int i = 0; i < length; i++)
+        {
+            final int comparison = (left[i] & 0xff) - (right[i] & 0xff);
+            if (comparison != 0)
+                return comparison;
+        }
+        return leftLength - rightLength;
+    }
+
+    /**
+     * File of a catalog, its fields are decoded when asked for.
+     */
+    public class Entry
+    {
+        private final int index;
+        private final String fileUri;
+
+        private Entry(final int index, final String fileUri)
+        {
+            this.index = index;
+            this.fileUri = fileUri;
+        }
+
+        public String getFileUri()
+        {
+            return fileUri;
+        }
+
+        /**
+         * @return type of the file, {@code NULL} if the SDK doesn't know it
+         */
+        public FileType getFileType()
+        {
+            final byte ordinal = fileTypes[index];
+            return ordinal != UNKNOWN_FILE_TYPE ? FILE_TYPES[ordinal] : null;
+        }
+
+        /**
+         * @return last upload time in epoch milliseconds, {@link #UNKNOWN_TIME} if it wasn't listed
+         */
+        public long getLastUploaded()
+        {
+            return lastUploaded[index];
+        }
+
+        @Override
+        public String toString()
+        {
+            return "FileCatalog.Entry{" +
+                    "fileUri='" + fileUri + '\'' +
+                    ", fileType=" + getFileType() +
+                    ", lastUploaded=" + getLastUploaded() +
+                    '}';
+        }
+    }
+
+    /**
+     * Collects files in any order, a file added twice keeps the last values. Not thread safe.
+     */
+    public static class Builder implements FileListItemConsumer
+    {
+        private final List<PendingFile> pending = new ArrayList<>();
+        private final DateFormat dateFormat = DateFormatter.getDateFormat();
+
+        /**
+         * Adds a listed file, an unparseable upload time is kept as {@link #UNKNOWN_TIME}.
+         */
+        @Override
+        public void accept(final FileListItem item)
+        {
+            add(item.getFileUri(), FileType.lookup(item.getFileType()), parseTime(item.getLastUploaded()));
+        }
+
+        /**
+         * @param fileType type of the file, can be {@code NULL}
+         * @param lastUploaded last upload time in epoch milliseconds
+         * @return the current instance of a builder
+         */
+        public Builder add(final String fileUri, final FileType fileType, final long lastUploaded)
+        {
+            pending.add(new PendingFile(fileUri.getBytes(UTF_8), fileType != null ? (byte)fileType.ordinal() : UNKNOWN_FILE_TYPE, lastUploaded));
+            return this;
+        }
+
+        public FileCatalog build()
+        {
+            // stable, so the last of equal URIs stays last
+            Collections.sort(pending, new Comparator<PendingFile>()
+            {
+                @Override
+                public int compare(final PendingFile left, final PendingFile right)
+                {
+                    return FileCatalog.compare(left.uri, left.uri.length, right.uri, right.uri.length);
+                }
+            });
+            final List<PendingFile> files = new ArrayList<>(pending.size());
+            for (int i = 0; i < pending.size(); i++)
+            {
+                if (i + 1 == pending.size() || !Arrays.equals(pending.get(i).uri, pending.get(i + 1).uri))
+                    files.add(pending.get(i));
+            }
+
+            final int size = files.size();
+            final ByteArrayOutputStream arena = new ByteArrayOutputStream();
+            final int[] blockOffsets = new int[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+            final byte[] fileTypes = new byte[size];
+            final long[] lastUploaded = new long[size];
+            byte[] previous = new byte[0];
+            for (int i = 0; i < size; i++)
+            {
+                final PendingFile file = files.get(i);
+                int shared = 0;
+                if (i % BLOCK_SIZE == 0)
+                    blockOffsets[i / BLOCK_SIZE] = arena.size();
+                else
+                    shared = sharedPrefixLength(previous, file.uri);
+
+                writeVarInt(arena, shared);
+                writeVarInt(arena, file.uri.length - shared);
+                arena.write(file.uri, shared, file.uri.length - shared);
+                previous = file.uri;
+
+                fileTypes[i] = file.fileType;
+                lastUploaded[i] = file.lastUploaded;
+            }
+
+            return new FileCatalog(size, arena.toByteArray(), blockOffsets, fileTypes, lastUploaded);
+        }
+
+        private long parseTime(final String time)
+        {
+            if (time == null)
+                return UNKNOWN_TIME;
+            try
+            {
+                return dateFormat.parse(time).getTime();
+            }
+            catch (ParseException e)
+            {
+                return UNKNOWN_TIME;
+            }
+        }
+
+        private static int sharedPrefixLength(final byte[] previous, final byte[] uri)
+        {
+            final int length = Math.min(previous.length, uri.length);
+            int shared = 0;
+            while (shared < length && previous[shared] == uri[shared])
+                shared++;
+            return shared;
+        }
+
+        private static void writeVarInt(final ByteArrayOutputStream out, int value)
+        {
+            while ((value & ~0x7f) != 0)
+            {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+    }
+
+    private static class PendingFile
+    {
+        private final byte[] uri;
+        private final byte fileType;
+        private final long lastUploaded;
+
+        private PendingFile(final byte[] uri, final byte fileType, final long lastUploaded)
+        {
+            this.uri = uri;
+            this.fileType = fileType;
+            this.lastUploaded = lastUploaded;
+        }
+    }
+}
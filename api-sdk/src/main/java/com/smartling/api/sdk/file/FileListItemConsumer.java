@@ -0,0 +1,12 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.file.response.FileListItem;
+
+/**
+ * Receives the items of a file listing one by one while the response is parsed,
+ * see {@link StreamingFileApiClient#getFilesList(com.smartling.api.sdk.file.parameters.FileListSearchParameterBuilder, FileListItemConsumer)}.
+ */
+public interface FileListItemConsumer
+{
+    void accept(FileListItem item);
+}
@@ -0,0 +1,273 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import com.smartling.api.sdk.exceptions.UncheckedSmartlingApiException;
+import com.smartling.api.sdk.file.parameters.FileListSearchParameterBuilder;
+import com.smartling.api.sdk.file.response.FileList;
+import com.smartling.api.sdk.file.response.FileListItem;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * All the files matching a search, requested page by page with {@link FileApiClient#getFilesList(FileListSearchParameterBuilder)}
+ * while they are iterated. Paging ends at the total count reported by the API. A page shorter than asked for, e.g. when the API
+ * caps the limit, is followed by a request for the rest of its files before the next page.
+ * <p>
+ * With an executor the following pages are fetched while the current one is consumed, several of them in parallel if asked for.
+ * Pages are fetched only a few ahead of the consumer, so a consumer which stops early doesn't load the whole listing;
+ * {@link PageIterator#close()} cancels the pages still in flight.
+ * Failures of the API are thrown as {@link UncheckedSmartlingApiException}.
+ */
+public class PagedFileList implements Iterable<FileListItem>
+{
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final FileApiClient fileApiClient;
+    private final FileListSearchParameterBuilder searchParameters;
+    private int pageSize;
+    private AsyncFileApiClient asyncFileApiClient;
+    private int prefetchedPages;
+
+    /**
+     * @param fileApiClient client listing the files
+     * @param searchParameters search, its limit is the page size unless set, its offset is where the listing starts
+     * @throws IllegalArgumentException if the limit of the search isn't positive
+     */
+    public PagedFileList(final FileApiClient fileApiClient, final FileListSearchParameterBuilder searchParameters)
+    {
+        this.fileApiClient = fileApiClient;
+        this.searchParameters = searchParameters;
+        this.pageSize = checkPageSize(searchParameters.getLimit() != null ? searchParameters.getLimit() : DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @param pageSize number of files requested per call
+     * @return the current instance
+     * @throws IllegalArgumentException if the page size isn't positive
+     */
+    public PagedFileList pageSize(final int pageSize)
+    {
+        this.pageSize = checkPageSize(pageSize);
+        return this;
+    }
+
+    private static int checkPageSize(final int pageSize)
+    {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException(String.format("Page size must be positive, got %d", pageSize));
+        return pageSize;
+    }
+
+    /**
+     * Fetches the following pages on the executor while the current one is consumed.
+     * @param executorService executor of the page calls
+     * @param prefetchedPages pages requested ahead of the consumer, more than one are fetched in parallel
+     * @return the current instance
+     */
+    public PagedFileList prefetch(final ExecutorService executorService, final int prefetchedPages)
+    {
+        this.asyncFileApiClient = new AsyncFileApiClient(fileApiClient, executorService);
+        this.prefetchedPages = prefetchedPages;
+        return this;
+    }
+
+    /**
+     * @return a new iteration of the listing, the first page is requested by the first {@link PageIterator#hasNext()}
+     */
+    @Override
+    public PageIterator iterator()
+    {
+        return new PageIterator();
+    }
+
+    private FileListSearchParameterBuilder pageParameters(final Window window)
+    {
+        return new FileListSearchParameterBuilder()
+                .withUriMask(searchParameters.getUriMask())
+                .withFileTypes(searchParameters.getFileTypes())
+                .withLastUploadedAfter(searchParameters.getLastUploadedAfter())
+                .withLastUploadedBefore(searchParameters.getLastUploadedBefore())
+                .withOffset(window.offset)
+                .withLimit(window.limit);
+    }
+
+    /**
+     * Files requested by one page call.
+     */
+    private static class Window
+    {
+        private final int offset;
+        private final int limit;
+        private Future<FileList> future;
+
+        private Window(final int offset, final int limit)
+        {
+            this.offset = offset;
+            this.limit = limit;
+        }
+    }
+
+    public class PageIterator implements Iterator<FileListItem>, Closeable
+    {
+        private final Deque<Window> prefetched = new ArrayDeque<>();
+        private final int startOffset = searchParameters.getOffset() != null ? searchParameters.getOffset() : 0;
+        private int nextOffset = startOffset;
+        private int totalCount = -1;
+        private Iterator<FileListItem> page = Collections.<FileListItem>emptyList().iterator();
+        private Window rest;
+        private boolean finished;
+
+        private PageIterator()
+        {
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (!page.hasNext())
+            {
+                if (finished || !nextPage())
+                {
+                    close();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public FileListItem next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return page.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Stops the iteration and cancels the pages in flight.
+         */
+        @Override
+        public void close()
+        {
+            finished = true;
+            Window window;
+            while ((window = prefetched.poll()) != null)
+                window.future.cancel(true);
+        }
+
+        /**
+         * @return false once the listing is over
+         */
+        private boolean nextPage()
+        {
+            final Window window;
+            final FileList fileList;
+            if (rest != null)
+            {
+                window = rest;
+                rest = null;
+                fileList = fetch(window);
+            }
+            else if (!prefetched.isEmpty())
+            {
+                window = prefetched.poll();
+                fileList = await(window.future);
+            }
+            else if (hasMorePages())
+            {
+                window = takeWindow();
+                fileList = fetch(window);
+            }
+            else
+            {
+                return false;
+            }
+
+            totalCount = fileList.getTotalCount();
+            if (fileList.getItems() == null || fileList.getItems().isEmpty())
+                return false;
+
+            // a short page doesn't cover its window, the rest of it is requested before the following pages
+            final int items = fileList.getItems().size();
+            final int end = Math.min(window.offset + window.limit, totalCount);
+            if (window.offset + items < end)
+                rest = new Window(window.offset + items, end - window.offset - items);
+
+            page = fileList.getItems().iterator();
+            prefetch();
+            return true;
+        }
+
+        private boolean hasMorePages()
+        {
+            return totalCount < 0 ? nextOffset == startOffset : nextOffset < totalCount;
+        }
+
+        private Window takeWindow()
+        {
+            final Window window = new Window(nextOffset, pageSize);
+            nextOffset += pageSize;
+            return window;
+        }
+
+        private void prefetch()
+        {
+            if (asyncFileApiClient == null)
+                return;
+            while (prefetched.size() < prefetchedPages && hasMorePages())
+            {
+                final Window window = takeWindow();
+                window.future = asyncFileApiClient.getFilesList(pageParameters(window));
+                prefetched.add(window);
+            }
+        }
+
+        private FileList fetch(final Window window)
+        {
+            try
+            {
+                return fileApiClient.getFilesList(pageParameters(window));
+            }
+            catch (SmartlingApiException e)
+            {
+                close();
+                throw new UncheckedSmartlingApiException(e);
+            }
+        }
+
+        private FileList await(final Future<FileList> future)
+        {
+            try
+            {
+                return future.get();
+            }
+            catch (InterruptedException e)
+            {
+                close();
+                Thread.currentThread().interrupt();
+                throw new UncheckedSmartlingApiException(new SmartlingApiException("Interrupted while waiting for the next page of files", e));
+            }
+            catch (ExecutionException e)
+            {
+                close();
+                final Throwable cause = e.getCause();
+                throw new UncheckedSmartlingApiException(cause instanceof SmartlingApiException ? (SmartlingApiException)cause
+                        : new SmartlingApiException(cause.getMessage(), cause));
+            }
+        }
+    }
+}
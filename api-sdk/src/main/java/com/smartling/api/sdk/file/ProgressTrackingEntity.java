@@ -0,0 +1,83 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.UploadProgress;
+import com.smartling.api.sdk.UploadProgressListener;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request body reporting to an {@link UploadProgressListener} how much of it has been sent. Every time the body is
+ * written again, by the client retrying the upload or by the http client itself, a new attempt starts from zero.
+ */
+class ProgressTrackingEntity extends HttpEntityWrapper
+{
+    private static final long REPORT_INTERVAL_BYTES = 64 * 1024;
+
+    private final String fileUri;
+    private final UploadProgressListener progressListener;
+    private int attempt;
+
+    ProgressTrackingEntity(final HttpEntity entity, final String fileUri, final UploadProgressListener progressListener)
+    {
+        super(entity);
+        this.fileUri = fileUri;
+        this.progressListener = progressListener;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException
+    {
+        final ProgressOutputStream progressOutputStream = new ProgressOutputStream(out, ++attempt);
+        super.writeTo(progressOutputStream);
+        progressOutputStream.flush();
+        progressOutputStream.report();
+    }
+
+    private class ProgressOutputStream extends FilterOutputStream
+    {
+        private final int attempt;
+        private final long totalBytes = getContentLength();
+        private final long start = System.nanoTime();
+        private long bytesSent;
+        private long reportedBytes;
+
+        private ProgressOutputStream(final OutputStream out, final int attempt)
+        {
+            super(out);
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void write(final int b) throws IOException
+        {
+            out.write(b);
+            sent(1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException
+        {
+            out.write(b, off, len);
+            sent(len);
+        }
+
+        private void sent(final int length)
+        {
+            bytesSent += length;
+            if (bytesSent - reportedBytes >= REPORT_INTERVAL_BYTES)
+                report();
+        }
+
+        private void report()
+        {
+            reportedBytes = bytesSent;
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            progressListener.progressChanged(new UploadProgress(fileUri, attempt, bytesSent, totalBytes, elapsedMillis));
+        }
+    }
+}
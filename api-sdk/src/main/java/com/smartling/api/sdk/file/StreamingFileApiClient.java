@@ -0,0 +1,54 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.dto.file.UploadFileData;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import com.smartling.api.sdk.file.parameters.FileImportParameterBuilder;
+import com.smartling.api.sdk.file.parameters.FileListSearchParameterBuilder;
+import com.smartling.api.sdk.file.parameters.FileUploadParameterBuilder;
+import com.smartling.api.sdk.file.response.FileImportSmartlingData;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * {@link FileApiClient} sending and receiving content without temporary files or intermediate copies.
+ * Kept apart from {@link FileApiClient}, so existing implementations of it don't have to implement these calls.
+ * Implemented by the clients built with {@link FileApiClientImpl.Builder} and by {@link DeduplicatingFileApiClient}.
+ */
+public interface StreamingFileApiClient extends FileApiClient
+{
+    /**
+     * Uploads a file mapped into memory, sent with an exact length and repeatable on retries.
+     */
+    UploadFileData uploadFile(Path fileToUpload, FileUploadParameterBuilder fileUploadParameterBuilder) throws SmartlingApiException;
+
+    UploadFileData uploadFile(byte[] contents, String fileName, FileUploadParameterBuilder fileUploadParameterBuilder) throws SmartlingApiException;
+
+    /**
+     * Uploads the remaining bytes of the buffer, its position is left untouched.
+     */
+    UploadFileData uploadFile(ByteBuffer contents, String fileName, FileUploadParameterBuilder fileUploadParameterBuilder) throws SmartlingApiException;
+
+    /**
+     * Imports translations streamed into the request as they are read, without a temporary file.
+     */
+    FileImportSmartlingData importTranslations(InputStream inputStream, String fileName, FileImportParameterBuilder fileImportParameterBuilder)
+            throws SmartlingApiException;
+
+    FileImportSmartlingData importTranslations(ReadableByteChannel channel, String fileName, FileImportParameterBuilder fileImportParameterBuilder)
+            throws SmartlingApiException;
+
+    /**
+     * Imports the remaining bytes of the buffer with an exact length, its position is left untouched.
+     */
+    FileImportSmartlingData importTranslations(ByteBuffer contents, String fileName, FileImportParameterBuilder fileImportParameterBuilder)
+            throws SmartlingApiException;
+
+    /**
+     * Hands the listed files to the consumer as they are parsed from the response, without collecting them in a list.
+     * @return number of files matching the search
+     */
+    int getFilesList(FileListSearchParameterBuilder fileListSearchParameterBuilder, FileListItemConsumer consumer) throws SmartlingApiException;
+}
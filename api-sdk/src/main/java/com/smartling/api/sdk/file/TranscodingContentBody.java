@@ -0,0 +1,226 @@
+package com.smartling.api.sdk.file;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Text file part converted to another charset while it is written into the request. The source charset is taken from
+ * a byte order mark if the content starts with one, otherwise the declared charset is used. The mark is not copied.
+ * Bytes go through fixed size buffers, the decoder and the encoder are reused when the part is written again.
+ * The converted length isn't known upfront, so the request is sent chunked.
+ */
+class TranscodingContentBody extends AbstractContentBody
+{
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_BOM_LENGTH = 3;
+
+    private final ContentBody contentBody;
+    private final Charset declaredCharset;
+    private final CharsetEncoder encoder;
+    private CharsetDecoder decoder;
+
+    private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer output;
+
+    /**
+     * @param contentBody part in the source charset
+     * @param declaredCharset charset of the content without a byte order mark
+     * @param targetCharset charset the part is sent in
+     */
+    TranscodingContentBody(final ContentBody contentBody, final Charset declaredCharset, final Charset targetCharset)
+    {
+        super(ContentType.create(contentBody.getMimeType(), targetCharset));
+        this.contentBody = contentBody;
+        this.declaredCharset = declaredCharset;
+        this.encoder = targetCharset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        this.output = ByteBuffer.allocate((int)Math.ceil(BUFFER_SIZE * encoder.maxBytesPerChar()));
+    }
+
+    @Override
+    public String getFilename()
+    {
+        return contentBody.getFilename();
+    }
+
+    @Override
+    public synchronized void writeTo(final OutputStream out) throws IOException
+    {
+        input.clear();
+        chars.clear();
+        output.clear();
+        encoder.reset();
+        decoder = null;
+
+        final TranscodingOutputStream transcodingOutputStream = new TranscodingOutputStream(out);
+        contentBody.writeTo(transcodingOutputStream);
+        transcodingOutputStream.finish();
+    }
+
+    @Override
+    public String getTransferEncoding()
+    {
+        return MIME.ENC_BINARY;
+    }
+
+    @Override
+    public long getContentLength()
+    {
+        return -1;
+    }
+
+    /**
+     * @return charset of the content starting with the bytes, {@code NULL} if they don't start with a byte order mark
+     */
+    static Charset detectBom(final ByteBuffer bytes)
+    {
+        final int remaining = bytes.remaining();
+        final int position = bytes.position();
+        final int b0 = remaining > 0 ? bytes.get(position) & 0xff : -1;
+        final int b1 = remaining > 1 ? bytes.get(position + 1) & 0xff : -1;
+        final int b2 = remaining > 2 ? bytes.get(position + 2) & 0xff : -1;
+
+        if (b0 == 0xef && b1 == 0xbb && b2 == 0xbf)
+            return Charset.forName("UTF-8");
+        if (b0 == 0xfe && b1 == 0xff)
+            return Charset.forName("UTF-16BE");
+        if (b0 == 0xff && b1 == 0xfe)
+            return Charset.forName("UTF-16LE");
+        return null;
+    }
+
+    private CharsetDecoder decoderFor(final Charset charset)
+    {
+        if (decoder == null || !decoder.charset().equals(charset))
+        {
+            decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+        }
+        return decoder.reset();
+    }
+
+    private class TranscodingOutputStream extends OutputStream
+    {
+        private final OutputStream out;
+        private CharsetDecoder activeDecoder;
+
+        private TranscodingOutputStream(final OutputStream out)
+        {
+            this.out = out;
+        }
+
+        @Override
+        public void write(final int b) throws IOException
+        {
+            write(new byte[] {(byte)b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, int off, int len) throws IOException
+        {
+            while (len > 0)
+            {
+                final int length = Math.min(len, input.remaining());
+                input.put(b, off, length);
+                off += length;
+                len -= length;
+                decode(false);
+            }
+        }
+
+        /**
+         * Decodes the rest of the input and writes out everything left in the buffers. The target stream stays open.
+         */
+        private void finish() throws IOException
+        {
+            decode(true);
+            while (activeDecoder.flush(chars).isOverflow())
+                encode(false);
+            encode(true);
+            while (encoder.flush(output).isOverflow())
+                drainOutput();
+            drainOutput();
+        }
+
+        private void decode(final boolean endOfInput) throws IOException
+        {
+            input.flip();
+            if (activeDecoder == null && !startDecoding(endOfInput))
+            {
+                input.compact();
+                return;
+            }
+
+            while (true)
+            {
+                final CoderResult result = activeDecoder.decode(input, chars, endOfInput);
+                check(result);
+                encode(false);
+                if (result.isUnderflow())
+                    break;
+            }
+            input.compact();
+        }
+
+        /**
+         * Picks the decoder once enough bytes to recognize a byte order mark have been written, and skips the mark.
+         */
+        private boolean startDecoding(final boolean endOfInput)
+        {
+            if (input.remaining() < MAX_BOM_LENGTH && !endOfInput)
+                return false;
+
+            final Charset bomCharset = detectBom(input);
+            if (bomCharset != null)
+                input.position(input.position() + ("UTF-8".equals(bomCharset.name()) ? 3 : 2));
+
+            activeDecoder = decoderFor(bomCharset != null ? bomCharset : declaredCharset);
+            return true;
+        }
+
+        private void encode(final boolean endOfInput) throws IOException
+        {
+            chars.flip();
+            while (true)
+            {
+                final CoderResult result = encoder.encode(chars, output, endOfInput);
+                check(result);
+                if (result.isOverflow())
+                    drainOutput();
+                else
+                    break;
+            }
+            chars.compact();
+            drainOutput();
+        }
+
+        private void drainOutput() throws IOException
+        {
+            output.flip();
+            if (output.hasRemaining())
+                out.write(output.array(), output.arrayOffset() + output.position(), output.remaining());
+            output.clear();
+        }
+
+        private void check(final CoderResult result) throws IOException
+        {
+            if (result.isError())
+                result.throwException();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.smartling.api.sdk.file;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent index of the content digests, or fingerprints, last uploaded, used by {@link DeduplicatingFileApiClient}.
+ * Entries are appended to a log file as they change, so recording an upload doesn't rewrite the whole index.
+ * The log is compacted when it is opened, when it is closed and whenever it grows to several times the number of entries,
+ * so a long running process doesn't grow it without bound. Keys are stored hashed, so the file doesn't reveal file URIs or directives.
+ */
+public class UploadIndex implements Closeable
+{
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final String KEY_DIGEST_ALGORITHM = "SHA-256";
+    private static final String SEPARATOR = " ";
+    private static final String REMOVED = "-";
+    private static final int COMPACTION_FACTOR = 4;
+    private static final int MIN_COMPACTION_LINES = 1000;
+
+    private final Path path;
+    private final Map<String, String> digests = new HashMap<>();
+    private Writer writer;
+    private int lines;
+
+    /**
+     * Opens the index, creating the file if it does not exist.
+     * @param path file of the index
+     * @throws IOException if the file can't be read or written
+     */
+    public UploadIndex(final Path path) throws IOException
+    {
+        this.path = path;
+        lines = load();
+        if (lines > digests.size())
+            compact();
+        openWriter();
+    }
+
+    /**
+     * @param key identifies an upload, e.g. its project and file URI
+     * @return digest of the content last uploaded with the key, {@code NULL} if unknown
+     */
+    public synchronized String getDigest(final String key)
+    {
+        return digests.get(hash(key));
+    }
+
+    /**
+     * Records the digest of the content uploaded with the key.
+     * @param key identifies an upload
+     * @param digest digest of the uploaded content
+     * @throws IOException if the index file can't be written
+     */
+    public synchronized void putDigest(final String key, final String digest) throws IOException
+    {
+        final String hashedKey = hash(key);
+        if (digest.equals(digests.put(hashedKey, digest)))
+            return;
+        append(hashedKey, digest);
+    }
+
+    /**
+     * Forgets the content uploaded with the key, so the next upload is not skipped.
+     * @param key identifies an upload
+     * @throws IOException if the index file can't be written
+     */
+    public synchronized void remove(final String key) throws IOException
+    {
+        final String hashedKey = hash(key);
+        if (digests.remove(hashedKey) != null)
+            append(hashedKey, REMOVED);
+    }
+
+    public synchronized int size()
+    {
+        return digests.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (writer != null)
+        {
+            writer.close();
+            writer = null;
+            if (lines > digests.size())
+                compact();
+        }
+    }
+
+    private void append(final String hashedKey, final String digest) throws IOException
+    {
+        if (writer == null)
+            throw new IOException(String.format("Upload index '%s' is closed", path));
+
+        writer.write(hashedKey + SEPARATOR + digest + "\n");
+        writer.flush();
+        lines++;
+
+        if (lines > Math.max(MIN_COMPACTION_LINES, COMPACTION_FACTOR * digests.size()))
+        {
+            writer.close();
+            writer = null;
+            try
+            {
+                compact();
+            }
+            finally
+            {
+                openWriter();
+            }
+        }
+    }
+
+    private void openWriter() throws IOException
+    {
+        writer = Files.newBufferedWriter(path, CHARSET, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private int load() throws IOException
+    {
+        if (!Files.exists(path))
+            return 0;
+
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, CHARSET))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                final int separator = line.indexOf(SEPARATOR);
+                if (separator <= 0)
+                    continue;
+
+                lines++;
+                final String hashedKey = line.substring(0, separator);
+                final String digest = line.substring(separator + 1);
+                if (REMOVED.equals(digest))
+                    digests.remove(hashedKey);
+                else
+                    digests.put(hashedKey, digest);
+            }
+        }
+        return lines;
+    }
+
+    private void compact() throws IOException
+    {
+        final Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter compactedWriter = Files.newBufferedWriter(compacted, CHARSET))
+        {
+            for (final Map.Entry<String, String> entry : digests.entrySet())
+                compactedWriter.write(entry.getKey() + SEPARATOR + entry.getValue() + "\n");
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lines = digests.size();
+    }
+
+    private static String hash(final String key)
+    {
+        try
+        {
+            return DigestingContentBody.toHex(MessageDigest.getInstance(KEY_DIGEST_ALGORITHM).digest(key.getBytes(CHARSET)));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // required on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+}
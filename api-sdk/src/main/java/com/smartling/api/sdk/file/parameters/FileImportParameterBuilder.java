@@ -27,6 +27,14 @@ public class FileImportParameterBuilder implements ParameterBuilder
         this.fileUri = fileUri;
     }
 
+    /**
+     * Creates parameters of an import whose content is passed to the client as a stream, channel or buffer.
+     */
+    public FileImportParameterBuilder(String locale, String charset, FileType fileType, String fileUri)
+    {
+        this(null, locale, charset, fileType, fileUri);
+    }
+
     public FileImportParameterBuilder directives(final boolean overwrite)
     {
         this.overwrite = overwrite;
@@ -0,0 +1,225 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.BulkheadConfiguration;
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CancellationToken;
+import com.smartling.api.sdk.OperationClass;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runtime state of a {@link BulkheadConfiguration}: call permits and connection pool partition of every operation class.
+ */
+public class Bulkheads
+{
+    private final BulkheadConfiguration bulkheadConfiguration;
+    private final Map<OperationClass, Permits> permits = new EnumMap<>(OperationClass.class);
+    private final Map<OperationClass, PoolingHttpClientConnectionManager> connectionManagers = new EnumMap<>(OperationClass.class);
+
+    public Bulkheads(final BulkheadConfiguration bulkheadConfiguration)
+    {
+        this(bulkheadConfiguration, new ConnectionManagerFactory());
+    }
+
+    Bulkheads(final BulkheadConfiguration bulkheadConfiguration, final ConnectionManagerFactory connectionManagerFactory)
+    {
+        this.bulkheadConfiguration = bulkheadConfiguration;
+
+        for (final OperationClass operationClass : OperationClass.values())
+        {
+            final int maxConcurrentCalls = bulkheadConfiguration.getMaxConcurrentCalls(operationClass);
+            if (maxConcurrentCalls > 0)
+                permits.put(operationClass, new Permits(maxConcurrentCalls));
+
+            final int maxConnections = bulkheadConfiguration.getMaxConnections(operationClass);
+            if (maxConnections > 0)
+                connectionManagers.put(operationClass, connectionManagerFactory.create(maxConnections));
+        }
+    }
+
+    /**
+     * @param operationClass class of operations
+     * @return connection pool partition of the class or {@code NULL} if the class has none
+     */
+    public HttpClientConnectionManager getConnectionManager(final OperationClass operationClass)
+    {
+        return connectionManagers.get(operationClass);
+    }
+
+    /**
+     * Waits for a free slot in the bulkhead of the class, but not longer than the call deadline or until the call is cancelled.
+     * @param operationClass class of operations
+     * @param callContext context of the call, can be {@code NULL}
+     * @throws SmartlingApiException if no slot got free in time or the call is cancelled while waiting
+     */
+    public void acquire(final OperationClass operationClass, final CallContext callContext) throws SmartlingApiException
+    {
+        final Permits bulkhead = permits.get(operationClass);
+        if (bulkhead == null)
+            return;
+
+        long waitMillis = bulkheadConfiguration.getMaxWaitMillis();
+        if (callContext != null)
+            waitMillis = Math.min(waitMillis, callContext.getRemainingMillis());
+
+        final CancellationToken cancellationToken = callContext != null ? callContext.getCancellationToken() : null;
+        final Runnable wakeUp = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                bulkhead.wakeUp();
+            }
+        };
+        if (cancellationToken != null && !cancellationToken.addListener(wakeUp))
+            throw new SmartlingApiException(String.format("Call cancelled in bulkhead '%s'", operationClass));
+
+        try
+        {
+            if (!bulkhead.acquire(waitMillis, cancellationToken))
+            {
+                if (cancellationToken != null && cancellationToken.isCancelled())
+                    throw new SmartlingApiException(String.format("Call cancelled in bulkhead '%s'", operationClass));
+                throw new SmartlingApiException(String.format("Bulkhead '%s' is full", operationClass));
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SmartlingApiException(e);
+        }
+        finally
+        {
+            if (cancellationToken != null)
+                cancellationToken.removeListener(wakeUp);
+        }
+    }
+
+    public void release(final OperationClass operationClass)
+    {
+        final Permits bulkhead = permits.get(operationClass);
+        if (bulkhead != null)
+            bulkhead.release();
+    }
+
+    public int getAvailableCalls(final OperationClass operationClass)
+    {
+        final Permits bulkhead = permits.get(operationClass);
+        return bulkhead != null ? bulkhead.getAvailable() : Integer.MAX_VALUE;
+    }
+
+    Collection<PoolingHttpClientConnectionManager> getConnectionManagers()
+    {
+        return connectionManagers.values();
+    }
+
+    public void shutdown()
+    {
+        for (final PoolingHttpClientConnectionManager connectionManager : connectionManagers.values())
+            connectionManager.shutdown();
+    }
+
+    /**
+     * Call slots of a bulkhead, handed out in arrival order. Unlike a semaphore a waiter can be woken up
+     * by the cancellation of its call.
+     */
+    private static class Permits
+    {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final Condition released = lock.newCondition();
+        private int available;
+        private int waiting;
+
+        private Permits(final int permits)
+        {
+            this.available = permits;
+        }
+
+        private boolean acquire(final long waitMillis, final CancellationToken cancellationToken) throws InterruptedException
+        {
+            lock.lock();
+            try
+            {
+                // a new call doesn't overtake the waiting ones
+                if (waiting == 0 && available > 0)
+                {
+                    available--;
+                    return true;
+                }
+
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(waitMillis);
+                waiting++;
+                try
+                {
+                    while (available == 0)
+                    {
+                        if (remainingNanos <= 0 || cancellationToken != null && cancellationToken.isCancelled())
+                            return false;
+                        remainingNanos = released.awaitNanos(remainingNanos);
+                    }
+                    available--;
+                    return true;
+                }
+                finally
+                {
+                    waiting--;
+                    // pass on a slot this waiter was signalled for but didn't take
+                    if (available > 0 && waiting > 0)
+                        released.signal();
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        private void release()
+        {
+            lock.lock();
+            try
+            {
+                available++;
+                released.signal();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        private void wakeUp()
+        {
+            lock.lock();
+            try
+            {
+                released.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        private int getAvailable()
+        {
+            lock.lock();
+            try
+            {
+                return available;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+}
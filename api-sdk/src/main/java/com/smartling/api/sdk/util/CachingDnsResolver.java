@@ -0,0 +1,73 @@
+package com.smartling.api.sdk.util;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps resolved addresses for a fixed time, so new pooled connections don't wait for DNS.
+ * Failed lookups are not cached.
+ */
+public class CachingDnsResolver implements DnsResolver
+{
+    private final DnsResolver delegate;
+    private final long ttlNanos;
+    private final ConcurrentMap<String, CachedAddresses> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public CachingDnsResolver(final long ttl, final TimeUnit unit)
+    {
+        this(SystemDefaultDnsResolver.INSTANCE, ttl, unit);
+    }
+
+    public CachingDnsResolver(final DnsResolver delegate, final long ttl, final TimeUnit unit)
+    {
+        this.delegate = delegate;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    @Override
+    public InetAddress[] resolve(final String host) throws UnknownHostException
+    {
+        final CachedAddresses cached = cache.get(host);
+        if (cached != null && cached.expiresAt - System.nanoTime() > 0)
+        {
+            hitCount.incrementAndGet();
+            return cached.addresses.clone();
+        }
+
+        missCount.incrementAndGet();
+        final InetAddress[] addresses = delegate.resolve(host);
+        cache.put(host, new CachedAddresses(addresses.clone(), System.nanoTime() + ttlNanos));
+        return addresses;
+    }
+
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    private static class CachedAddresses
+    {
+        private final InetAddress[] addresses;
+        private final long expiresAt;
+
+        private CachedAddresses(final InetAddress[] addresses, final long expiresAt)
+        {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
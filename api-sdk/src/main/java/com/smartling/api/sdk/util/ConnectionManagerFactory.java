@@ -0,0 +1,55 @@
+package com.smartling.api.sdk.util;
+
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+/**
+ * Creates the connection pools of {@link HttpUtils} and its bulkheads with the same transport settings.
+ */
+class ConnectionManagerFactory
+{
+    private LayeredConnectionSocketFactory sslSocketFactory;
+    private DnsResolver dnsResolver;
+
+    LayeredConnectionSocketFactory getSslSocketFactory()
+    {
+        return sslSocketFactory;
+    }
+
+    void setSslSocketFactory(final LayeredConnectionSocketFactory sslSocketFactory)
+    {
+        this.sslSocketFactory = sslSocketFactory;
+    }
+
+    DnsResolver getDnsResolver()
+    {
+        return dnsResolver;
+    }
+
+    void setDnsResolver(final DnsResolver dnsResolver)
+    {
+        this.dnsResolver = dnsResolver;
+    }
+
+    PoolingHttpClientConnectionManager create(final int maxConnections)
+    {
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(createRegistry(), dnsResolver);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        return connectionManager;
+    }
+
+    private Registry<ConnectionSocketFactory> createRegistry()
+    {
+        return RegistryBuilder.<ConnectionSocketFactory>create()
+                .register(HttpUtils.SCHEME_HTTP, PlainConnectionSocketFactory.getSocketFactory())
+                .register(HttpUtils.SCHEME_HTTPS, sslSocketFactory != null ? sslSocketFactory : SSLConnectionSocketFactory.getSocketFactory())
+                .build();
+    }
+}
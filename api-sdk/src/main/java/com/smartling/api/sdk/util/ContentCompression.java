@@ -0,0 +1,135 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.OperationClass;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Negotiates gzip and deflate compressed responses and decompresses them while they are read.
+ * Compression is asked for every operation class unless disabled, e.g. for downloads of formats which are already compressed.
+ * Counts bytes received on the wire and bytes decoded from them, so the saving can be monitored.
+ */
+public class ContentCompression
+{
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final String GZIP = "gzip";
+    private static final String X_GZIP = "x-gzip";
+    private static final String DEFLATE = "deflate";
+
+    private final Set<OperationClass> disabledOperationClasses = EnumSet.noneOf(OperationClass.class);
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong decodedBytes = new AtomicLong();
+    private final AtomicLong compressedResponseCount = new AtomicLong();
+
+    /**
+     * @param operationClass class of calls which don't ask for compressed responses
+     * @return the current instance
+     */
+    public synchronized ContentCompression disable(final OperationClass operationClass)
+    {
+        disabledOperationClasses.add(operationClass);
+        return this;
+    }
+
+    /**
+     * @param requestDescriptor describes the call, can be {@code NULL}
+     * @return whether the call asks for a compressed response
+     */
+    public synchronized boolean isEnabled(final RequestDescriptor requestDescriptor)
+    {
+        return requestDescriptor == null || !disabledOperationClasses.contains(requestDescriptor.getOperationClass());
+    }
+
+    /**
+     * @return bytes of response bodies as received, compressed or not
+     */
+    public long getWireBytes()
+    {
+        return wireBytes.get();
+    }
+
+    /**
+     * @return bytes of response bodies after decompression
+     */
+    public long getDecodedBytes()
+    {
+        return decodedBytes.get();
+    }
+
+    public long getCompressedResponseCount()
+    {
+        return compressedResponseCount.get();
+    }
+
+    void negotiate(final HttpRequest request, final RequestDescriptor requestDescriptor)
+    {
+        if (isEnabled(requestDescriptor))
+            request.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
+    }
+
+    /**
+     * @param entity response body as received
+     * @return body decompressed while it is read, counting the bytes on both sides
+     */
+    HttpEntity decode(final HttpEntity entity)
+    {
+        if (entity == null)
+            return null;
+
+        final HttpEntity wireEntity = new CountingEntity(entity, wireBytes);
+        final Header contentEncoding = entity.getContentEncoding();
+        final String encoding = contentEncoding != null ? contentEncoding.getValue().trim().toLowerCase() : null;
+
+        final HttpEntity decodedEntity;
+        if (GZIP.equals(encoding) || X_GZIP.equals(encoding))
+            decodedEntity = new GzipDecompressingEntity(wireEntity);
+        else if (DEFLATE.equals(encoding))
+            decodedEntity = new DeflateDecompressingEntity(wireEntity);
+        else
+            decodedEntity = null;
+
+        if (decodedEntity == null)
+            return new CountingEntity(wireEntity, decodedBytes);
+
+        compressedResponseCount.incrementAndGet();
+        return new CountingEntity(decodedEntity, decodedBytes);
+    }
+
+    private static class CountingEntity extends HttpEntityWrapper
+    {
+        private final AtomicLong counter;
+
+        private CountingEntity(final HttpEntity entity, final AtomicLong counter)
+        {
+            super(entity);
+            this.counter = counter;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException
+        {
+            return new ProxyInputStream(super.getContent())
+            {
+                @Override
+                protected void afterRead(final int n)
+                {
+                    if (n > 0)
+                        counter.addAndGet(n);
+                }
+            };
+        }
+    }
+}
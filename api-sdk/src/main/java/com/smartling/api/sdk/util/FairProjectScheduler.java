@@ -0,0 +1,338 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CancellationToken;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares the transport between projects with deficit round-robin over per project queues.
+ * Each turn a project may send as many calls as its weight, and never more than its in-flight cap at once,
+ * so a project re-uploading everything can't starve the others. Calls not bound to a project are not scheduled.
+ * A scheduler can be shared by the clients of all the projects.
+ */
+public class FairProjectScheduler
+{
+    public static final int DEFAULT_WEIGHT = 1;
+
+    private final int maxConcurrentCalls;
+    private final int defaultMaxInFlightPerProject;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Integer> weights = new HashMap<>();
+    private final Map<String, Integer> maxInFlight = new HashMap<>();
+    private final Map<String, ProjectQueue> queues = new HashMap<>();
+    private final Deque<ProjectQueue> activeQueues = new ArrayDeque<>();
+    private int inFlight;
+
+    /**
+     * @param maxConcurrentCalls maximum number of calls of all projects in flight at once
+     * @param defaultMaxInFlightPerProject maximum number of calls of a project in flight at once, unless set for the project
+     */
+    public FairProjectScheduler(final int maxConcurrentCalls, final int defaultMaxInFlightPerProject)
+    {
+        if (maxConcurrentCalls <= 0 || defaultMaxInFlightPerProject <= 0)
+            throw new IllegalArgumentException("Limits must be positive");
+
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.defaultMaxInFlightPerProject = defaultMaxInFlightPerProject;
+    }
+
+    /**
+     * @param projectId project
+     * @param weight number of calls the project may send per round, {@link #DEFAULT_WEIGHT} unless set
+     * @return the current instance of a scheduler
+     */
+    public FairProjectScheduler weight(final String projectId, final int weight)
+    {
+        if (weight <= 0)
+            throw new IllegalArgumentException("Weight must be positive");
+
+        lock.lock();
+        try
+        {
+            weights.put(projectId, weight);
+            return this;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param projectId project
+     * @param maxInFlightCalls maximum number of calls of the project in flight at once
+     * @return the current instance of a scheduler
+     */
+    public FairProjectScheduler maxInFlight(final String projectId, final int maxInFlightCalls)
+    {
+        if (maxInFlightCalls <= 0)
+            throw new IllegalArgumentException("maxInFlightCalls must be positive");
+
+        lock.lock();
+        try
+        {
+            maxInFlight.put(projectId, maxInFlightCalls);
+            dispatch();
+            return this;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the turn of the project, but not longer than the call deadline or until the call is cancelled.
+     * @param projectId project of the call, {@code NULL} lets the call through at once
+     * @param callContext context of the call, can be {@code NULL}
+     * @throws SmartlingApiException if the deadline is exceeded or the call is cancelled while waiting or the thread is interrupted
+     */
+    public void acquire(final String projectId, final CallContext callContext) throws SmartlingApiException
+    {
+        if (projectId == null)
+            return;
+
+        final CancellationToken cancellationToken = callContext != null ? callContext.getCancellationToken() : null;
+        final Ticket ticket = new Ticket(lock.newCondition());
+        final Runnable wakeUp = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                lock.lock();
+                try
+                {
+                    ticket.condition.signal();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+        };
+        if (cancellationToken != null && !cancellationToken.addListener(wakeUp))
+            throw new SmartlingApiException(String.format("Call cancelled in queue of project '%s'", projectId));
+
+        lock.lock();
+        try
+        {
+            final ProjectQueue queue = getQueue(projectId);
+            queue.waiting.addLast(ticket);
+            if (queue.waiting.size() == 1 && !activeQueues.contains(queue))
+                activeQueues.addLast(queue);
+            dispatch();
+
+            try
+            {
+                while (!ticket.admitted)
+                {
+                    if (cancellationToken != null && cancellationToken.isCancelled())
+                        throw new SmartlingApiException(String.format("Call cancelled in queue of project '%s'", projectId));
+
+                    if (callContext == null || !callContext.hasDeadline())
+                    {
+                        ticket.condition.await();
+                    }
+                    else
+                    {
+                        final long remainingMillis = callContext.getRemainingMillis();
+                        if (remainingMillis <= 0)
+                            throw new SmartlingApiException(String.format("Call deadline exceeded in queue of project '%s'", projectId));
+                        ticket.condition.await(remainingMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                abandon(queue, ticket);
+                throw new SmartlingApiException(e);
+            }
+            catch (SmartlingApiException e)
+            {
+                abandon(queue, ticket);
+                throw e;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+            if (cancellationToken != null)
+                cancellationToken.removeListener(wakeUp);
+        }
+    }
+
+    public void release(final String projectId)
+    {
+        if (projectId == null)
+            return;
+
+        lock.lock();
+        try
+        {
+            final ProjectQueue queue = queues.get(projectId);
+            queue.inFlight--;
+            inFlight--;
+            removeIfIdle(queue);
+            dispatch();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of calls of the project waiting for its turn
+     */
+    public int getQueueDepth(final String projectId)
+    {
+        lock.lock();
+        try
+        {
+            final ProjectQueue queue = queues.get(projectId);
+            return queue != null ? queue.waiting.size() : 0;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlightCalls(final String projectId)
+    {
+        lock.lock();
+        try
+        {
+            final ProjectQueue queue = queues.get(projectId);
+            return queue != null ? queue.inFlight : 0;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private ProjectQueue getQueue(final String projectId)
+    {
+        ProjectQueue queue = queues.get(projectId);
+        if (queue == null)
+        {
+            queue = new ProjectQueue(projectId);
+            queues.put(projectId, queue);
+        }
+        return queue;
+    }
+
+    private void abandon(final ProjectQueue queue, final Ticket ticket)
+    {
+        if (ticket.admitted)
+        {
+            queue.inFlight--;
+            inFlight--;
+        }
+        else
+        {
+            queue.waiting.remove(ticket);
+        }
+        removeIfIdle(queue);
+        dispatch();
+    }
+
+    private void removeIfIdle(final ProjectQueue queue)
+    {
+        if (queue.waiting.isEmpty() && queue.inFlight == 0)
+        {
+            activeQueues.remove(queue);
+            queues.remove(queue.projectId);
+        }
+    }
+
+    /**
+     * Hands free slots out to the waiting calls, the project at the head of the round keeps its turn
+     * while it has deficit left, waiting calls and room under its cap.
+     */
+    private void dispatch()
+    {
+        int turnsWithoutAdmission = 0;
+        while (inFlight < maxConcurrentCalls && !activeQueues.isEmpty() && turnsWithoutAdmission <= activeQueues.size())
+        {
+            final ProjectQueue queue = activeQueues.peekFirst();
+            if (!queue.turnStarted)
+            {
+                // every call costs the same, so an unused deficit is not carried over to the next round
+                queue.deficit = getWeight(queue.projectId);
+                queue.turnStarted = true;
+            }
+
+            final int cap = getMaxInFlight(queue.projectId);
+            boolean admitted = false;
+            while (queue.deficit > 0 && !queue.waiting.isEmpty() && queue.inFlight < cap && inFlight < maxConcurrentCalls)
+            {
+                final Ticket ticket = queue.waiting.pollFirst();
+                ticket.admitted = true;
+                ticket.condition.signal();
+                queue.deficit--;
+                queue.inFlight++;
+                inFlight++;
+                admitted = true;
+            }
+
+            if (inFlight >= maxConcurrentCalls && queue.deficit > 0 && !queue.waiting.isEmpty() && queue.inFlight < cap)
+                return;
+
+            queue.turnStarted = false;
+            activeQueues.pollFirst();
+            if (!queue.waiting.isEmpty())
+                activeQueues.addLast(queue);
+
+            turnsWithoutAdmission = admitted ? 0 : turnsWithoutAdmission + 1;
+        }
+    }
+
+    private int getWeight(final String projectId)
+    {
+        final Integer weight = weights.get(projectId);
+        return weight != null ? weight : DEFAULT_WEIGHT;
+    }
+
+    private int getMaxInFlight(final String projectId)
+    {
+        final Integer cap = maxInFlight.get(projectId);
+        return cap != null ? cap : defaultMaxInFlightPerProject;
+    }
+
+    private static class ProjectQueue
+    {
+        private final String projectId;
+        private final Deque<Ticket> waiting = new ArrayDeque<>();
+        private int inFlight;
+        private int deficit;
+        private boolean turnStarted;
+
+        private ProjectQueue(final String projectId)
+        {
+            this.projectId = projectId;
+        }
+    }
+
+    private static class Ticket
+    {
+        private final Condition condition;
+        private boolean admitted;
+
+        private Ticket(final Condition condition)
+        {
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.smartling.api.sdk.util;
+
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.X509HostnameVerifier;
+import org.apache.http.protocol.HttpContext;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TLS socket factory counting handshakes and how many of them resumed a cached session.
+ * Reuse one instance, and so one {@link SSLContext}, for all the clients: sessions are cached by the context,
+ * so connections opened later to the same host skip the full handshake.
+ */
+public class HandshakeMonitoringSocketFactory extends SSLConnectionSocketFactory
+{
+    public static final int DEFAULT_SESSION_CACHE_SIZE = 1000;
+    public static final int DEFAULT_SESSION_TIMEOUT_SECONDS = 3600;
+
+    private final AtomicLong handshakeCount = new AtomicLong();
+    private final AtomicLong resumedHandshakeCount = new AtomicLong();
+    private final AtomicLong handshakeNanos = new AtomicLong();
+
+    public HandshakeMonitoringSocketFactory(final SSLContext sslContext)
+    {
+        this(sslContext, DEFAULT_SESSION_CACHE_SIZE, DEFAULT_SESSION_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * @param sslContext context to create sockets with, its client session cache is configured by the factory
+     * @param sessionCacheSize maximum number of cached sessions, zero means unlimited
+     * @param sessionTimeoutSeconds how long a cached session can be resumed, zero means forever
+     */
+    public HandshakeMonitoringSocketFactory(final SSLContext sslContext, final int sessionCacheSize, final int sessionTimeoutSeconds)
+    {
+        super(sslContext, BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+
+        final SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(sessionCacheSize);
+        sessionContext.setSessionTimeout(sessionTimeoutSeconds);
+    }
+
+    HandshakeMonitoringSocketFactory(final SSLSocketFactory socketFactory, final X509HostnameVerifier hostnameVerifier)
+    {
+        super(socketFactory, hostnameVerifier);
+    }
+
+    @Override
+    public Socket createLayeredSocket(final Socket socket, final String target, final int port, final HttpContext context) throws IOException
+    {
+        final long startMillis = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        final Socket layeredSocket = super.createLayeredSocket(socket, target, port, context);
+        handshakeNanos.addAndGet(System.nanoTime() - start);
+        handshakeCount.incrementAndGet();
+
+        // a resumed session was created by an earlier handshake
+        final SSLSession session = ((SSLSocket)layeredSocket).getSession();
+        if (session != null && session.getCreationTime() < startMillis)
+            resumedHandshakeCount.incrementAndGet();
+
+        return layeredSocket;
+    }
+
+    public long getHandshakeCount()
+    {
+        return handshakeCount.get();
+    }
+
+    public long getResumedHandshakeCount()
+    {
+        return resumedHandshakeCount.get();
+    }
+
+    public long getTotalHandshakeMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(handshakeNanos.get());
+    }
+
+    public long getAverageHandshakeMillis()
+    {
+        final long count = handshakeCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(handshakeNanos.get() / count);
+    }
+}
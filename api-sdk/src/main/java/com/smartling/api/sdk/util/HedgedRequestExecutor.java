@@ -0,0 +1,282 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.HedgingPolicy;
+import com.smartling.api.sdk.ProxyConfiguration;
+import com.smartling.api.sdk.dto.file.StringResponse;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.methods.HttpRequestBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executes idempotent requests according to a {@link HedgingPolicy}.
+ * A second identical request is sent if the first one has not answered within the configured latency percentile,
+ * the first one to finish wins and the other one is aborted, or closed if it has finished too.
+ * The latency of every attempt feeds the percentile, an aborted attempt counts with the time it ran.
+ */
+public class HedgedRequestExecutor
+{
+    private static final Log logger = LogFactory.getLog(HedgedRequestExecutor.class);
+
+    private static final int MIN_SAMPLES = 20;
+
+    private final HedgingPolicy hedgingPolicy;
+    private final ExecutorService executorService;
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+    private double hedgeCredits;
+
+    public HedgedRequestExecutor(final HedgingPolicy hedgingPolicy)
+    {
+        this.hedgingPolicy = hedgingPolicy;
+        this.executorService = hedgingPolicy.getExecutorService() != null ? hedgingPolicy.getExecutorService() : SharedExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Executes idempotent request, sending a hedge if it does not answer in time.
+     * @param httpUtils transport to execute requests with
+     * @param httpRequest idempotent request, it is copied for the hedge
+     * @param proxyConfiguration proxy configuration
+     * @param requestDescriptor what the request does, can be {@code NULL}
+     * @return response of the first request to finish
+     * @throws SmartlingApiException if all attempts have failed
+     */
+    public StringResponse execute(final HttpUtils httpUtils, final HttpRequestBase httpRequest, final ProxyConfiguration proxyConfiguration,
+                                  final RequestDescriptor requestDescriptor) throws SmartlingApiException
+    {
+        requestCount.incrementAndGet();
+        addHedgeCredit();
+
+        final CompletionService<Attempt> completionService = new ExecutorCompletionService<>(executorService);
+        final List<Attempt> attempts = new ArrayList<>(2);
+        Attempt winner = null;
+        try
+        {
+            submit(completionService, attempts, new Attempt(httpUtils, httpRequest, proxyConfiguration, requestDescriptor, false));
+
+            Future<Attempt> completed = completionService.poll(getHedgeDelayMillis(), TimeUnit.MILLISECONDS);
+            if (completed == null && acquireHedgeCredit())
+            {
+                final HttpRequestBase hedgeRequest = copyOf(httpRequest);
+                if (hedgeRequest != null)
+                {
+                    hedgeCount.incrementAndGet();
+                    submit(completionService, attempts, new Attempt(httpUtils, hedgeRequest, proxyConfiguration, requestDescriptor, true));
+                }
+            }
+
+            for (int pending = attempts.size(); pending > 0; pending--)
+            {
+                winner = (completed != null ? completed : completionService.take()).get();
+                completed = null;
+                if (winner.failure == null)
+                    break;
+            }
+
+            return winner.complete();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SmartlingApiException(e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new SmartlingApiException("Hedged request failed", e.getCause());
+        }
+        finally
+        {
+            for (final Attempt attempt : attempts)
+            {
+                if (attempt != winner)
+                    attempt.discard();
+            }
+        }
+    }
+
+    public long getRequestCount()
+    {
+        return requestCount.get();
+    }
+
+    public long getHedgeCount()
+    {
+        return hedgeCount.get();
+    }
+
+    public long getHedgeWinCount()
+    {
+        return hedgeWinCount.get();
+    }
+
+    long getHedgeDelayMillis()
+    {
+        if (latencyTracker.getSampleCount() < MIN_SAMPLES)
+            return Math.max(hedgingPolicy.getMinDelayMillis(), hedgingPolicy.getInitialDelayMillis());
+
+        return Math.max(hedgingPolicy.getMinDelayMillis(), latencyTracker.getPercentile(hedgingPolicy.getDelayPercentile()));
+    }
+
+    private void submit(final CompletionService<Attempt> completionService, final List<Attempt> attempts, final Attempt attempt)
+    {
+        attempts.add(attempt);
+        completionService.submit(attempt);
+    }
+
+    private synchronized void addHedgeCredit()
+    {
+        hedgeCredits = Math.min(1.0, hedgeCredits + hedgingPolicy.getMaxHedgeRatio());
+    }
+
+    private synchronized boolean acquireHedgeCredit()
+    {
+        if (hedgeCredits < 1.0)
+            return false;
+
+        hedgeCredits -= 1.0;
+        return true;
+    }
+
+    private static HttpRequestBase copyOf(final HttpRequestBase httpRequest)
+    {
+        try
+        {
+            return (HttpRequestBase)httpRequest.clone();
+        }
+        catch (CloneNotSupportedException e)
+        {
+            logger.warn(String.format("Request can't be hedged: %s", e.getMessage()));
+            return null;
+        }
+    }
+
+    private class Attempt implements Callable<Attempt>
+    {
+        private final HttpUtils httpUtils;
+        private final HttpRequestBase httpRequest;
+        private final ProxyConfiguration proxyConfiguration;
+        private final RequestDescriptor requestDescriptor;
+        private final boolean hedge;
+        private final CallContext callContext;
+
+        private boolean finished;
+        private boolean discarded;
+        private long start;
+        private volatile boolean started;
+        private StringResponse response;
+        private SmartlingApiException failure;
+        private String requestId;
+        private HttpUtils.ResponseDetails responseDetails;
+        private long latencyMillis;
+
+        private Attempt(final HttpUtils httpUtils, final HttpRequestBase httpRequest, final ProxyConfiguration proxyConfiguration,
+                        final RequestDescriptor requestDescriptor, final boolean hedge)
+        {
+            this.httpUtils = httpUtils;
+            this.httpRequest = httpRequest;
+            this.proxyConfiguration = proxyConfiguration;
+            this.requestDescriptor = requestDescriptor;
+            this.hedge = hedge;
+            this.callContext = CallContext.current();
+        }
+
+        @Override
+        public Attempt call()
+        {
+            start = System.nanoTime();
+            started = true;
+            CallContext.attach(callContext);
+            try
+            {
+                response = httpUtils.executeHttpCall(httpRequest, proxyConfiguration, requestDescriptor);
+            }
+            catch (SmartlingApiException e)
+            {
+                failure = e;
+            }
+            catch (RuntimeException e)
+            {
+                failure = new SmartlingApiException(e);
+            }
+            finally
+            {
+                CallContext.detach();
+                latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                requestId = HttpUtils.getRequestId().get();
+                responseDetails = HttpUtils.getResponseDetails().get();
+                finish();
+            }
+            return this;
+        }
+
+        private synchronized void finish()
+        {
+            finished = true;
+            if (discarded)
+            {
+                // lost while it was running, it was aborted before it could answer
+                if (response != null)
+                    response.close();
+                return;
+            }
+            if (failure == null)
+                latencyTracker.record(latencyMillis);
+        }
+
+        /**
+         * Aborts the attempt if it is still running or closes its response if it has lost.
+         */
+        private synchronized void discard()
+        {
+            discarded = true;
+            if (!finished)
+            {
+                if (started)
+                    latencyTracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                httpRequest.abort();
+            }
+            else if (response != null)
+            {
+                response.close();
+            }
+        }
+
+        /**
+         * Hands the outcome over to the calling thread.
+         */
+        private StringResponse complete() throws SmartlingApiException
+        {
+            HttpUtils.getRequestId().set(requestId);
+            HttpUtils.getResponseDetails().set(responseDetails);
+
+            if (failure != null)
+                throw failure;
+
+            if (hedge)
+                hedgeWinCount.incrementAndGet();
+
+            return response;
+        }
+    }
+
+    private static class SharedExecutorHolder
+    {
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new DaemonThreadFactory("smartling-hedging"));
+    }
+}
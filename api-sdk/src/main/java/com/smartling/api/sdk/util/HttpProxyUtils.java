@@ -22,6 +22,8 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -30,12 +32,39 @@ import com.smartling.api.sdk.ProxyConfiguration;
 
 public class HttpProxyUtils
 {
+    private LayeredConnectionSocketFactory sslSocketFactory;
+    private KeepAlivePolicy keepAlivePolicy;
+    private ContentCompression contentCompression;
 
     public HttpProxyUtils()
     {
 
     }
 
+    /**
+     * @param sslSocketFactory TLS socket factory of clients with their own connection pool, {@code NULL} uses the default one
+     */
+    public void setSslSocketFactory(LayeredConnectionSocketFactory sslSocketFactory)
+    {
+        this.sslSocketFactory = sslSocketFactory;
+    }
+
+    /**
+     * @param keepAlivePolicy keep-alive strategy and retry handler of the clients, {@code NULL} uses the default ones
+     */
+    public void setKeepAlivePolicy(KeepAlivePolicy keepAlivePolicy)
+    {
+        this.keepAlivePolicy = keepAlivePolicy;
+    }
+
+    /**
+     * @param contentCompression decoder of compressed responses replacing the one of the clients, {@code NULL} keeps the clients' own
+     */
+    public void setContentCompression(ContentCompression contentCompression)
+    {
+        this.contentCompression = contentCompression;
+    }
+
     /**
      * Get a request config given the applicable request and proxy config if any
      * @param httpRequest request
@@ -58,9 +87,40 @@ public class HttpProxyUtils
      * @return org.apache.http.impl.client.CloseableHttpClient
      */
     public CloseableHttpClient getHttpClient(final ProxyConfiguration proxyConfiguration)
+    {
+        return getHttpClient(proxyConfiguration, null);
+    }
+
+    /**
+     * Get an HttpClient given a proxy config if any, leasing connections from the given pool
+     * @param proxyConfiguration configuration of proxy to use
+     * @param connectionManager connection pool to use, if {@code NULL} the client gets its own one
+     * @return org.apache.http.impl.client.CloseableHttpClient
+     */
+    public CloseableHttpClient getHttpClient(final ProxyConfiguration proxyConfiguration, final HttpClientConnectionManager connectionManager)
     {
         HttpClientBuilder httpClientBuilder = getHttpClientBuilder();
 
+        if (connectionManager != null)
+        {
+            httpClientBuilder = httpClientBuilder.setConnectionManager(connectionManager);
+        }
+        else if (sslSocketFactory != null)
+        {
+            httpClientBuilder = httpClientBuilder.setSSLSocketFactory(sslSocketFactory);
+        }
+
+        if (keepAlivePolicy != null)
+        {
+            httpClientBuilder = httpClientBuilder.setKeepAliveStrategy(keepAlivePolicy).setRetryHandler(keepAlivePolicy.getRetryHandler());
+        }
+
+        if (contentCompression != null)
+        {
+            // responses are decoded by the content compression, which counts the bytes on the wire
+            httpClientBuilder = httpClientBuilder.disableContentCompression();
+        }
+
         if (proxyAuthenticationRequired(proxyConfiguration))
         {
             CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
@@ -15,27 +15,61 @@
  */
 package com.smartling.api.sdk.util;
 
+import com.smartling.api.sdk.BulkheadConfiguration;
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CallPriority;
+import com.smartling.api.sdk.CancellationToken;
 import com.smartling.api.sdk.LibNameVersionHolder;
+import com.smartling.api.sdk.OperationClass;
 import com.smartling.api.sdk.ProxyConfiguration;
+import com.smartling.api.sdk.TimeoutConfiguration;
 import com.smartling.api.sdk.dto.file.StringResponse;
 import com.smartling.api.sdk.exceptions.SmartlingApiException;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.CharEncoding;
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpMessage;
-import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.UnsupportedSchemeException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Util class for executing http calls
@@ -45,6 +79,8 @@ public class HttpUtils
     private static final Log logger = LogFactory.getLog(HttpUtils.class);
 
     private static final String LOG_MESSAGE_ERROR_TEMPLATE = "GENERAL ERROR: %s";
+    private static final String DEADLINE_EXCEEDED_MESSAGE = "Call deadline exceeded";
+    private static final String CANCELLED_MESSAGE = "Call cancelled";
     static final String SCHEME_HTTPS = "https";
     static final String SCHEME_HTTP = "http";
     static final String PROPERTY_SUFFIX_PROXY_HOST = ".proxyHost";
@@ -53,14 +89,199 @@ public class HttpUtils
     static final String PROPERTY_SUFFIX_PROXY_PASSWORD = ".proxyPassword";
     public static final String X_SL_REQUEST_ID = "X-SL-RequestId";
 
+    private static final String[] SYSTEM_PROXY_PROPERTIES = {
+            SCHEME_HTTPS + PROPERTY_SUFFIX_PROXY_HOST, SCHEME_HTTPS + PROPERTY_SUFFIX_PROXY_PORT,
+            SCHEME_HTTPS + PROPERTY_SUFFIX_PROXY_USERNAME, SCHEME_HTTPS + PROPERTY_SUFFIX_PROXY_PASSWORD,
+            SCHEME_HTTP + PROPERTY_SUFFIX_PROXY_HOST, SCHEME_HTTP + PROPERTY_SUFFIX_PROXY_PORT,
+            SCHEME_HTTP + PROPERTY_SUFFIX_PROXY_USERNAME, SCHEME_HTTP + PROPERTY_SUFFIX_PROXY_PASSWORD
+    };
+
+    private static final int MAX_PRESIZED_LENGTH = Integer.MAX_VALUE - 8;
+
     private static final ThreadLocal<String> requestId = new ThreadLocal<>();
     private static final ThreadLocal<ResponseDetails> responseDetails = new ThreadLocal<>();
 
     private HttpProxyUtils httpProxyUtils;
+    private TimeoutConfiguration timeoutConfiguration;
+    private BulkheadConfiguration bulkheadConfiguration;
+    private int maxPooledConnections;
+    private PriorityScheduler priorityScheduler;
+    private FairProjectScheduler fairProjectScheduler;
+    private KeepAlivePolicy keepAlivePolicy;
+    private ContentCompression contentCompression;
+    private ResponseBuffer responseBuffer;
+    private ResponseBufferPool responseBufferPool;
+    private final ConnectionManagerFactory connectionManagerFactory = new ConnectionManagerFactory();
+    private Bulkheads bulkheads;
+    private PoolingHttpClientConnectionManager pooledConnectionManager;
+    private volatile ResolvedProxy resolvedProxy;
+    private final ConcurrentMap<PooledClientKey, CloseableHttpClient> pooledClients = new ConcurrentHashMap<>();
+    private final BodyReader<StringResponse> stringResponseReader = new BodyReader<StringResponse>()
+    {
+        @Override
+        public StringResponse read(final HttpEntity entity, final String charset, final int statusCode, final RequestDescriptor requestDescriptor)
+                throws IOException
+        {
+            return inputStreamToString(entity.getContent(), entity.getContentLength(), charset, statusCode, requestDescriptor);
+        }
+    };
 
     public void setHttpProxyUtils(HttpProxyUtils httpProxyUtils)
     {
         this.httpProxyUtils = httpProxyUtils;
+        this.httpProxyUtils.setSslSocketFactory(connectionManagerFactory.getSslSocketFactory());
+        this.httpProxyUtils.setKeepAlivePolicy(keepAlivePolicy);
+        this.httpProxyUtils.setContentCompression(contentCompression);
+        this.resolvedProxy = null;
+        pooledClients.clear();
+    }
+
+    /**
+     * @param timeoutConfiguration default timeouts for every call, {@code NULL} leaves them undefined
+     */
+    public void setTimeoutConfiguration(TimeoutConfiguration timeoutConfiguration)
+    {
+        this.timeoutConfiguration = timeoutConfiguration;
+    }
+
+    /**
+     * @param bulkheadConfiguration bulkheads isolating operation classes, {@code NULL} switches isolation off
+     */
+    public void setBulkheadConfiguration(BulkheadConfiguration bulkheadConfiguration)
+    {
+        this.bulkheadConfiguration = bulkheadConfiguration;
+        createPools();
+    }
+
+    /**
+     * @param priorityScheduler scheduler admitting calls by the priority of their {@link CallContext}, {@code NULL} admits all calls at once
+     */
+    public void setPriorityScheduler(PriorityScheduler priorityScheduler)
+    {
+        this.priorityScheduler = priorityScheduler;
+    }
+
+    /**
+     * @param fairProjectScheduler scheduler sharing the transport fairly between projects, {@code NULL} admits all projects at once
+     */
+    public void setFairProjectScheduler(FairProjectScheduler fairProjectScheduler)
+    {
+        this.fairProjectScheduler = fairProjectScheduler;
+    }
+
+    /**
+     * Keeps connections alive between calls in a pool. Operation classes with their own bulkhead pool don't use it.
+     * @param maxConnections size of the pool, zero or less opens a new connection for every call
+     */
+    public void setMaxPooledConnections(int maxConnections)
+    {
+        this.maxPooledConnections = maxConnections;
+        createPools();
+    }
+
+    /**
+     * TLS socket factory of every connection. Sharing one factory, and so one {@link javax.net.ssl.SSLContext},
+     * lets connections resume TLS sessions instead of doing a full handshake, see {@link HandshakeMonitoringSocketFactory}.
+     * @param sslSocketFactory socket factory, {@code NULL} uses the default one
+     */
+    public void setSslSocketFactory(LayeredConnectionSocketFactory sslSocketFactory)
+    {
+        connectionManagerFactory.setSslSocketFactory(sslSocketFactory);
+        httpProxyUtils.setSslSocketFactory(sslSocketFactory);
+        createPools();
+    }
+
+    /**
+     * Resolver of host names of pooled connections, e.g. a {@link CachingDnsResolver}.
+     * Clients without a pool always use the system resolver.
+     * @param dnsResolver resolver, {@code NULL} uses the system one
+     */
+    public void setDnsResolver(DnsResolver dnsResolver)
+    {
+        connectionManagerFactory.setDnsResolver(dnsResolver);
+        createPools();
+    }
+
+    /**
+     * @param keepAlivePolicy lifetime of pooled connections, {@code NULL} keeps them as long as the server allows
+     */
+    public void setKeepAlivePolicy(KeepAlivePolicy keepAlivePolicy)
+    {
+        shutdown();
+        this.keepAlivePolicy = keepAlivePolicy;
+        httpProxyUtils.setKeepAlivePolicy(keepAlivePolicy);
+        createPools();
+    }
+
+    /**
+     * Negotiates compressed responses per operation class and counts bytes on the wire and decoded.
+     * @param contentCompression content compression, {@code NULL} leaves compression to the http client
+     */
+    public void setContentCompression(ContentCompression contentCompression)
+    {
+        this.contentCompression = contentCompression;
+        httpProxyUtils.setContentCompression(contentCompression);
+        pooledClients.clear();
+    }
+
+    /**
+     * Bounds the heap taken by response bodies, spilling large ones to temporary files.
+     * @param responseBuffer response buffer, {@code NULL} reads every body into the heap
+     */
+    public void setResponseBuffer(ResponseBuffer responseBuffer)
+    {
+        this.responseBuffer = responseBuffer;
+    }
+
+    /**
+     * Reads JSON responses, which are parsed and thrown away, into pooled buffers.
+     * @param responseBufferPool buffer pool, {@code NULL} allocates a new array for every response
+     */
+    public void setResponseBufferPool(ResponseBufferPool responseBufferPool)
+    {
+        this.responseBufferPool = responseBufferPool;
+    }
+
+    /**
+     * Closes the connections of pools kept between calls.
+     */
+    public void shutdown()
+    {
+        for (final PoolingHttpClientConnectionManager connectionManager : getConnectionManagers())
+        {
+            if (keepAlivePolicy != null)
+                keepAlivePolicy.unregister(connectionManager);
+            connectionManager.shutdown();
+        }
+        pooledClients.clear();
+    }
+
+    PoolingHttpClientConnectionManager getPooledConnectionManager()
+    {
+        return pooledConnectionManager;
+    }
+
+    private void createPools()
+    {
+        shutdown();
+        bulkheads = bulkheadConfiguration != null ? new Bulkheads(bulkheadConfiguration, connectionManagerFactory) : null;
+        pooledConnectionManager = maxPooledConnections > 0 ? connectionManagerFactory.create(maxPooledConnections) : null;
+
+        if (keepAlivePolicy != null)
+        {
+            for (final PoolingHttpClientConnectionManager connectionManager : getConnectionManagers())
+                keepAlivePolicy.register(connectionManager);
+        }
+    }
+
+    private List<PoolingHttpClientConnectionManager> getConnectionManagers()
+    {
+        final List<PoolingHttpClientConnectionManager> connectionManagers = new ArrayList<>();
+        if (bulkheads != null)
+            connectionManagers.addAll(bulkheads.getConnectionManagers());
+        if (pooledConnectionManager != null)
+            connectionManagers.add(pooledConnectionManager);
+        return connectionManagers;
     }
 
     public HttpUtils()
@@ -78,37 +299,251 @@ public class HttpUtils
         return responseDetails;
     }
 
+    /**
+     * Opens pooled connections to the host of the url ahead of the first call, so the call doesn't wait for DNS, TCP connect and TLS.
+     * Only the shared pool is warmed up, and only for direct connections. Failures are logged and don't stop the warm-up of the others.
+     * @param url url of the API
+     * @param connections number of connections to open, no more than the pool holds for the host
+     * @param proxyConfiguration proxy configuration of the calls
+     * @return number of connections ready in the pool
+     */
+    public int warmUp(final String url, final int connections, final ProxyConfiguration proxyConfiguration)
+    {
+        final PoolingHttpClientConnectionManager connectionManager = pooledConnectionManager;
+        if (connectionManager == null || connections <= 0)
+            return 0;
+
+        final HttpGet httpRequest = new HttpGet(url);
+        if (resolveProxy(httpRequest, proxyConfiguration).effective != null)
+        {
+            logger.debug("Connections are not warmed up when a proxy is used");
+            return 0;
+        }
+
+        final HttpHost host = URIUtils.extractHost(httpRequest.getURI());
+        final HttpRoute route;
+        try
+        {
+            final HttpHost target = new HttpHost(host.getHostName(), DefaultSchemePortResolver.INSTANCE.resolve(host), host.getSchemeName());
+            route = new HttpRoute(target, null, SCHEME_HTTPS.equalsIgnoreCase(target.getSchemeName()));
+        }
+        catch (UnsupportedSchemeException e)
+        {
+            logger.warn(String.format(LOG_MESSAGE_ERROR_TEMPLATE, e.getMessage()));
+            return 0;
+        }
+
+        // every connection is held until the end, leasing more than the pool holds would wait for a free one
+        final int poolSize = Math.min(connectionManager.getMaxPerRoute(route), connectionManager.getMaxTotal());
+        if (connections > poolSize)
+            logger.debug(String.format("Warm-up of %d connections is limited to the pool size %d", connections, poolSize));
+        final int warmUpConnections = Math.min(connections, poolSize);
+
+        final int connectTimeout = timeoutConfiguration != null ? Math.max(0, timeoutConfiguration.getConnectTimeoutMillis()) : 0;
+        final int connectionRequestTimeout = timeoutConfiguration != null ? Math.max(0, timeoutConfiguration.getConnectionRequestTimeoutMillis()) : 0;
+        final HttpClientContext context = HttpClientContext.create();
+        final List<HttpClientConnection> leased = new ArrayList<>(warmUpConnections);
+        int opened = 0;
+        try
+        {
+            for (int i = 0; i < warmUpConnections; i++)
+            {
+                final HttpClientConnection connection = connectionManager.requestConnection(route, null)
+                                                                         .get(connectionRequestTimeout, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+                if (!connection.isOpen())
+                {
+                    connectionManager.connect(connection, route, connectTimeout, context);
+                    connectionManager.routeComplete(connection, route, context);
+                }
+                opened++;
+            }
+        }
+        catch (IOException | InterruptedException | ExecutionException e)
+        {
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            logger.warn(String.format(LOG_MESSAGE_ERROR_TEMPLATE, e.getMessage()));
+        }
+        finally
+        {
+            for (final HttpClientConnection connection : leased)
+                connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+        }
+        return opened;
+    }
+
     /**
      * Method for executing http calls and retrieving string response.
+     * The deadline of the {@link CallContext} attached to the current thread, if any, limits the call and aborts it once exceeded,
+     * its {@link CancellationToken} aborts the call when cancelled.
      * @param httpRequest request for execute
      * @param proxyConfiguration proxy configuration, if it is set to {@code NULL} proxy settings will be setup from system properties. Otherwise switched off.
      * @return {@link StringResponse} the contents of the requested file along with the encoding of the file.
      * @throws com.smartling.api.sdk.exceptions.SmartlingApiException if an exception has occurred or non success is returned from the Smartling Translation API.
      */
     public StringResponse executeHttpCall(final HttpRequestBase httpRequest, final ProxyConfiguration proxyConfiguration) throws SmartlingApiException
+    {
+        return executeHttpCall(httpRequest, proxyConfiguration, null);
+    }
+
+    /**
+     * Method for executing http calls and retrieving string response within the bulkhead of the operation class.
+     * The call waits for its turn in the {@link PriorityScheduler} and then in the {@link FairProjectScheduler}, if they are set.
+     * @param httpRequest request for execute
+     * @param proxyConfiguration proxy configuration, if it is set to {@code NULL} proxy settings will be setup from system properties. Otherwise switched off.
+     * @param requestDescriptor describes the call, can be {@code NULL}
+     * @return {@link StringResponse} the contents of the requested file along with the encoding of the file.
+     * @throws com.smartling.api.sdk.exceptions.SmartlingApiException if an exception has occurred or non success is returned from the Smartling Translation API.
+     * @see #executeHttpCall(HttpRequestBase, ProxyConfiguration)
+     */
+    public StringResponse executeHttpCall(final HttpRequestBase httpRequest, final ProxyConfiguration proxyConfiguration, final RequestDescriptor requestDescriptor)
+            throws SmartlingApiException
+    {
+        return executeHttpCall(httpRequest, proxyConfiguration, requestDescriptor, stringResponseReader);
+    }
+
+    /**
+     * Executes the call like {@link #executeHttpCall(HttpRequestBase, ProxyConfiguration, RequestDescriptor)}, handing the body of
+     * a successful response to the handler while it is received, so a large body doesn't have to fit in memory.
+     * @param responseStreamHandler reads the response
+     * @return result of the handler
+     */
+    public <T> T executeHttpCall(final HttpRequestBase httpRequest, final ProxyConfiguration proxyConfiguration, final RequestDescriptor requestDescriptor,
+                                 final ResponseStreamHandler<T> responseStreamHandler) throws SmartlingApiException
+    {
+        return executeHttpCall(httpRequest, proxyConfiguration, requestDescriptor, new BodyReader<T>()
+        {
+            @Override
+            public T read(final HttpEntity entity, final String charset, final int statusCode, final RequestDescriptor requestDescriptor)
+                    throws IOException, SmartlingApiException
+            {
+                if (statusCode != HttpStatus.SC_OK)
+                {
+                    final StringResponse response = stringResponseReader.read(entity, charset, statusCode, requestDescriptor);
+                    try
+                    {
+                        return responseStreamHandler.handleResponse(response);
+                    }
+                    finally
+                    {
+                        response.close();
+                    }
+                }
+                return responseStreamHandler.handleStream(entity.getContent(), responseEncoding(charset));
+            }
+        });
+    }
+
+    private <T> T executeHttpCall(final HttpRequestBase httpRequest, final ProxyConfiguration proxyConfiguration, final RequestDescriptor requestDescriptor,
+                                  final BodyReader<T> bodyReader) throws SmartlingApiException
+    {
+        final CallContext callContext = CallContext.current();
+        final PriorityScheduler scheduler = priorityScheduler;
+        if (scheduler == null)
+            return executeForProject(httpRequest, proxyConfiguration, requestDescriptor, callContext, bodyReader);
+
+        final CallPriority priority = callContext != null ? callContext.getPriority() : CallPriority.INTERACTIVE;
+        scheduler.acquire(priority, callContext);
+        try
+        {
+            return executeForProject(httpRequest, proxyConfiguration, requestDescriptor, callContext, bodyReader);
+        }
+        finally
+        {
+            scheduler.release(priority);
+        }
+    }
+
+    private <T> T executeForProject(final HttpRequestBase httpRequest, final ProxyConfiguration proxyConfiguration,
+                                    final RequestDescriptor requestDescriptor, final CallContext callContext, final BodyReader<T> bodyReader)
+            throws SmartlingApiException
+    {
+        final FairProjectScheduler scheduler = fairProjectScheduler;
+        final String projectId = requestDescriptor != null ? requestDescriptor.getProjectId() : null;
+        if (scheduler == null || projectId == null)
+            return executeInBulkhead(httpRequest, proxyConfiguration, requestDescriptor, callContext, bodyReader);
+
+        scheduler.acquire(projectId, callContext);
+        try
+        {
+            return executeInBulkhead(httpRequest, proxyConfiguration, requestDescriptor, callContext, bodyReader);
+        }
+        finally
+        {
+            scheduler.release(projectId);
+        }
+    }
+
+    private <T> T executeInBulkhead(final HttpRequestBase httpRequest, final ProxyConfiguration proxyConfiguration,
+                                    final RequestDescriptor requestDescriptor, final CallContext callContext, final BodyReader<T> bodyReader)
+            throws SmartlingApiException
+    {
+        final Bulkheads callBulkheads = requestDescriptor != null ? bulkheads : null;
+        if (callBulkheads == null)
+            return execute(httpRequest, proxyConfiguration, requestDescriptor, callContext, pooledConnectionManager, bodyReader);
+
+        final OperationClass operationClass = requestDescriptor.getOperationClass();
+        callBulkheads.acquire(operationClass, callContext);
+        try
+        {
+            final HttpClientConnectionManager connectionManager = callBulkheads.getConnectionManager(operationClass);
+            return execute(httpRequest, proxyConfiguration, requestDescriptor, callContext,
+                    connectionManager != null ? connectionManager : pooledConnectionManager, bodyReader);
+        }
+        finally
+        {
+            callBulkheads.release(operationClass);
+        }
+    }
+
+    private <T> T execute(final HttpRequestBase httpRequest, final ProxyConfiguration proxyConfiguration, final RequestDescriptor requestDescriptor,
+                          final CallContext callContext, final HttpClientConnectionManager connectionManager, final BodyReader<T> bodyReader)
+            throws SmartlingApiException
     {
         CloseableHttpClient httpClient = null;
+        CloseableHttpResponse response = null;
+        ScheduledFuture<?> deadlineAbort = null;
+        final CancellationToken cancellationToken = callContext != null ? callContext.getCancellationToken() : null;
         try
         {
             requestId.remove();
             responseDetails.remove();
 
-            ProxyConfiguration newProxyConfiguration = mergeSystemProxyConfiguration(proxyConfiguration);
+            if (callContext != null && callContext.isDeadlineExceeded())
+                throw new SmartlingApiException(DEADLINE_EXCEEDED_MESSAGE);
+            if (cancellationToken != null && !cancellationToken.register(httpRequest))
+                throw new SmartlingApiException(CANCELLED_MESSAGE);
 
-            logProxyConfiguration(newProxyConfiguration);
+            final ResolvedProxy proxy = resolveProxy(httpRequest, proxyConfiguration);
 
-            httpClient = httpProxyUtils.getHttpClient(newProxyConfiguration);
+            final CloseableHttpClient callHttpClient;
+            if (connectionManager != null)
+            {
+                // a client over a shared connection pool must stay open, closing it would shut the pool down
+                callHttpClient = getPooledClient(proxy.effective, connectionManager);
+            }
+            else
+            {
+                httpClient = httpProxyUtils.getHttpClient(proxy.effective);
+                callHttpClient = httpClient;
+            }
 
-            RequestConfig proxyRequestConfig = httpProxyUtils.getProxyRequestConfig(httpRequest, newProxyConfiguration);
+            RequestConfig requestConfig = applyCallSettings(proxy.requestConfig, callContext, requestDescriptor);
 
-            if (proxyRequestConfig != null)
+            if (requestConfig != null)
             {
-                httpRequest.setConfig(proxyRequestConfig);
+                httpRequest.setConfig(requestConfig);
             }
             addUserAgentHeader(httpRequest);
-            final HttpResponse response = httpClient.execute(httpRequest);
-
-            final String charset = EntityUtils.getContentCharSet(response.getEntity());
+            final ContentCompression compression = contentCompression;
+            if (compression != null)
+                compression.negotiate(httpRequest, requestDescriptor);
+            deadlineAbort = scheduleDeadlineAbort(httpRequest, callContext);
+            response = callHttpClient.execute(httpRequest);
+
+            final HttpEntity entity = compression != null ? compression.decode(response.getEntity()) : response.getEntity();
+            final String charset = EntityUtils.getContentCharSet(entity);
             int statusCode = response.getStatusLine().getStatusCode();
 
             Header header = response.getFirstHeader(X_SL_REQUEST_ID);
@@ -120,25 +555,136 @@ public class HttpUtils
             ResponseDetails details = new ResponseDetails(statusCode, response.getAllHeaders());
             responseDetails.set(details);
 
-            return inputStreamToString(response.getEntity().getContent(), charset, statusCode);
+            return bodyReader.read(entity, charset, statusCode, requestDescriptor);
         }
         catch (final IOException ioe)
         {
             logger.error(String.format(LOG_MESSAGE_ERROR_TEMPLATE, ioe.getMessage()));
+            if (cancellationToken != null && cancellationToken.isCancelled())
+                throw new SmartlingApiException(CANCELLED_MESSAGE, ioe);
+            if (callContext != null && callContext.isDeadlineExceeded())
+                throw new SmartlingApiException(DEADLINE_EXCEEDED_MESSAGE, ioe);
             throw new SmartlingApiException(ioe);
         }
         finally
         {
-            try
+            if (deadlineAbort != null)
+                deadlineAbort.cancel(false);
+            if (cancellationToken != null)
+                cancellationToken.unregister(httpRequest);
+            closeQuietly(response);
+            closeQuietly(httpClient);
+        }
+    }
+
+    private static void closeQuietly(final Closeable closeable)
+    {
+        try
+        {
+            if (null != closeable)
+                closeable.close();
+        }
+        catch (final IOException ioe)
+        {
+            logger.warn(String.format(LOG_MESSAGE_ERROR_TEMPLATE, ioe.getMessage()));
+        }
+    }
+
+    /**
+     * Builds the config shared by all the calls through the proxy: the default timeouts and the stale connection check.
+     */
+    private static RequestConfig createSharedRequestConfig(final RequestConfig proxyRequestConfig, final int[] timeouts, final boolean staleConnectionCheck)
+    {
+        // the check is on by default
+        if (timeouts == null && staleConnectionCheck)
+            return proxyRequestConfig;
+
+        final RequestConfig.Builder builder = proxyRequestConfig != null ? RequestConfig.copy(proxyRequestConfig) : RequestConfig.custom();
+        if (timeouts != null)
+        {
+            builder.setConnectTimeout(timeouts[0]);
+            builder.setConnectionRequestTimeout(timeouts[1]);
+            builder.setSocketTimeout(timeouts[2]);
+        }
+        return builder.setStaleConnectionCheckEnabled(staleConnectionCheck).build();
+    }
+
+    /**
+     * Limits the timeouts of the shared config by the call deadline and enables expect-continue for the call,
+     * copying the config only if one of them changes a value.
+     */
+    private static RequestConfig applyCallSettings(final RequestConfig requestConfig, final CallContext callContext, final RequestDescriptor requestDescriptor)
+    {
+        RequestConfig.Builder builder = null;
+        if (callContext != null && callContext.hasDeadline())
+        {
+            final long remainingMillis = Math.max(1, callContext.getRemainingMillis());
+            final int connectTimeout = limitTimeout(requestConfig != null ? requestConfig.getConnectTimeout() : -1, remainingMillis);
+            final int connectionRequestTimeout = limitTimeout(requestConfig != null ? requestConfig.getConnectionRequestTimeout() : -1, remainingMillis);
+            final int socketTimeout = limitTimeout(requestConfig != null ? requestConfig.getSocketTimeout() : -1, remainingMillis);
+            if (requestConfig == null || connectTimeout != requestConfig.getConnectTimeout()
+                    || connectionRequestTimeout != requestConfig.getConnectionRequestTimeout() || socketTimeout != requestConfig.getSocketTimeout())
             {
-                if (null != httpClient)
-                    httpClient.close();
+                builder = requestConfig != null ? RequestConfig.copy(requestConfig) : RequestConfig.custom();
+                builder.setConnectTimeout(connectTimeout).setConnectionRequestTimeout(connectionRequestTimeout).setSocketTimeout(socketTimeout);
             }
-            catch (final IOException ioe)
+        }
+
+        if (requestDescriptor != null && requestDescriptor.isExpectContinue() && (requestConfig == null || !requestConfig.isExpectContinueEnabled()))
+        {
+            if (builder == null)
+                builder = requestConfig != null ? RequestConfig.copy(requestConfig) : RequestConfig.custom();
+            builder.setExpectContinueEnabled(true);
+        }
+
+        return builder != null ? builder.build() : requestConfig;
+    }
+
+    /**
+     * @return default timeouts of the calls, {@code NULL} if they are undefined
+     */
+    private int[] getDefaultTimeouts()
+    {
+        final TimeoutConfiguration timeouts = timeoutConfiguration;
+        if (timeouts == null)
+            return null;
+
+        return new int[] {
+                limitTimeout(timeouts.getConnectTimeoutMillis(), Long.MAX_VALUE),
+                limitTimeout(timeouts.getConnectionRequestTimeoutMillis(), Long.MAX_VALUE),
+                limitTimeout(timeouts.getSocketTimeoutMillis(), Long.MAX_VALUE)
+        };
+    }
+
+    private boolean isStaleConnectionCheckEnabled()
+    {
+        final KeepAlivePolicy policy = keepAlivePolicy;
+        return policy == null || policy.isStaleConnectionCheckEnabled();
+    }
+
+    private static int limitTimeout(final int timeoutMillis, final long remainingMillis)
+    {
+        if (remainingMillis == Long.MAX_VALUE)
+            return timeoutMillis > 0 ? timeoutMillis : -1;
+
+        final long limit = timeoutMillis > 0 ? Math.min(timeoutMillis, remainingMillis) : remainingMillis;
+        return (int)Math.min(Integer.MAX_VALUE, limit);
+    }
+
+    private static ScheduledFuture<?> scheduleDeadlineAbort(final HttpRequestBase httpRequest, final CallContext callContext)
+    {
+        if (callContext == null || !callContext.hasDeadline())
+            return null;
+
+        return DeadlineTimerHolder.TIMER.schedule(new Runnable()
+        {
+            @Override
+            public void run()
             {
-                logger.warn(String.format(LOG_MESSAGE_ERROR_TEMPLATE, ioe.getMessage()));
+                logger.warn(String.format("Aborting request '%s' after call deadline", httpRequest.getRequestLine()));
+                httpRequest.abort();
             }
-        }
+        }, callContext.getRemainingMillis(), TimeUnit.MILLISECONDS);
     }
 
     private void logProxyConfiguration(ProxyConfiguration proxyConfiguration)
@@ -153,13 +699,140 @@ public class HttpUtils
         }
     }
 
-    private StringResponse inputStreamToString(final InputStream inputStream, final String encoding, final int httpCode) throws IOException
+    private StringResponse inputStreamToString(final InputStream inputStream, final long contentLength, final String encoding, final int httpCode,
+                                               final RequestDescriptor requestDescriptor) throws IOException
     {
-        final byte[] contentsRaw = IOUtils.toByteArray(inputStream);
-        // unless UTF-16 explicitly specified, use default UTF-8 encoding.
-        final String responseEncoding = (null == encoding || !encoding.toUpperCase().contains(CharEncoding.UTF_16) ? CharEncoding.UTF_8 : CharEncoding.UTF_16);
+        final String responseEncoding = responseEncoding(encoding);
+        final boolean success = httpCode == HttpStatus.SC_OK;
+        InputStream bodyStream = inputStream;
+        long bodyLength = contentLength;
+
+        final ResponseBufferPool bufferPool = responseBufferPool;
+        if (bufferPool != null && bufferPool.isPooled(requestDescriptor, contentLength))
+        {
+            final byte[] pooledBuffer = bufferPool.acquire();
+            try
+            {
+                final int length = read(inputStream, pooledBuffer, 0, pooledBuffer.length);
+                final int next = length == pooledBuffer.length ? inputStream.read() : -1;
+                if (next == -1)
+                    return new StringResponse(new String(pooledBuffer, 0, length, responseEncoding), length, responseEncoding, success);
+
+                // longer than a pooled buffer, the bytes read so far are put back in front of the rest
+                final byte[] readBytes = Arrays.copyOf(pooledBuffer, length + 1);
+                readBytes[length] = (byte)next;
+                bodyStream = new SequenceInputStream(new ByteArrayInputStream(readBytes), inputStream);
+                bodyLength = -1;
+            }
+            finally
+            {
+                bufferPool.release(pooledBuffer);
+            }
+        }
+
+        final ResponseBuffer buffer = responseBuffer;
+        if (buffer != null)
+            return buffer.buffer(bodyStream, bodyLength, responseEncoding, success);
+
+        final byte[] contentsRaw = toByteArray(bodyStream, bodyLength);
         final String contents = new String(contentsRaw, responseEncoding);
-        return new StringResponse(contents, contentsRaw, responseEncoding, httpCode == HttpStatus.SC_OK);
+        return new StringResponse(contents, contentsRaw, responseEncoding, success);
+    }
+
+    private static String responseEncoding(final String charset)
+    {
+        // unless UTF-16 explicitly specified, use default UTF-8 encoding.
+        return null == charset || !charset.toUpperCase().contains(CharEncoding.UTF_16) ? CharEncoding.UTF_8 : CharEncoding.UTF_16;
+    }
+
+    /**
+     * Reads the body into an array of its declared length, so it isn't copied while a buffer grows.
+     * @param contentLength declared length of the body, negative if unknown
+     */
+    static byte[] toByteArray(final InputStream inputStream, final long contentLength) throws IOException
+    {
+        if (contentLength < 0 || contentLength > MAX_PRESIZED_LENGTH)
+            return IOUtils.toByteArray(inputStream);
+
+        final byte[] contents = new byte[(int)contentLength];
+        final int length = read(inputStream, contents, 0, contents.length);
+        if (length < contents.length)
+            return Arrays.copyOf(contents, length);
+
+        final int next = inputStream.read();
+        if (next == -1)
+            return contents;
+
+        // longer than declared
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(contents.length * 2 + 1);
+        out.write(contents);
+        out.write(next);
+        IOUtils.copy(inputStream, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads until the given length is read or the stream ends.
+     * @return number of bytes read
+     */
+    static int read(final InputStream inputStream, final byte[] buffer, final int offset, final int length) throws IOException
+    {
+        int total = 0;
+        while (total < length)
+        {
+            final int read = inputStream.read(buffer, offset + total, length - total);
+            if (read == -1)
+                break;
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Resolves the proxy of the call and builds the request config shared by its calls, reusing the last resolution
+     * while neither the requested configuration, the proxy system properties, the timeouts nor the stale connection check have changed.
+     */
+    private ResolvedProxy resolveProxy(final HttpRequestBase httpRequest, final ProxyConfiguration proxyConfiguration)
+    {
+        final String[] systemProperties = readSystemProxyProperties();
+        final int[] timeouts = getDefaultTimeouts();
+        final boolean staleConnectionCheck = isStaleConnectionCheckEnabled();
+        final ResolvedProxy lastResolved = resolvedProxy;
+        if (lastResolved != null && lastResolved.matches(proxyConfiguration, systemProperties, timeouts, staleConnectionCheck))
+            return lastResolved;
+
+        final ProxyConfiguration newProxyConfiguration = mergeSystemProxyConfiguration(proxyConfiguration);
+        logProxyConfiguration(newProxyConfiguration);
+
+        final ProxyConfiguration effective = newProxyConfiguration != null ? new ProxyConfiguration(newProxyConfiguration) : null;
+        final RequestConfig requestConfig = createSharedRequestConfig(httpProxyUtils.getProxyRequestConfig(httpRequest, effective), timeouts, staleConnectionCheck);
+        final ResolvedProxy resolved = new ResolvedProxy(proxyConfiguration != null ? new ProxyConfiguration(proxyConfiguration) : null, systemProperties,
+                timeouts, staleConnectionCheck, effective, requestConfig);
+        resolvedProxy = resolved;
+        return resolved;
+    }
+
+    private CloseableHttpClient getPooledClient(final ProxyConfiguration proxyConfiguration, final HttpClientConnectionManager connectionManager)
+    {
+        final PooledClientKey key = new PooledClientKey(proxyConfiguration, connectionManager);
+        CloseableHttpClient client = pooledClients.get(key);
+        if (client == null)
+        {
+            // a client losing the race is just dropped, it holds nothing but the shared pool
+            final CloseableHttpClient newClient = httpProxyUtils.getHttpClient(proxyConfiguration, connectionManager);
+            client = pooledClients.putIfAbsent(key, newClient);
+            if (client == null)
+                client = newClient;
+        }
+        return client;
+    }
+
+    private static String[] readSystemProxyProperties()
+    {
+        final String[] properties = new String[SYSTEM_PROXY_PROPERTIES.length];
+        for (int i = 0; i < properties.length; i++)
+            properties[i] = System.getProperty(SYSTEM_PROXY_PROPERTIES[i]);
+        return properties;
     }
 
     private ProxyConfiguration mergeSystemProxyConfiguration(final ProxyConfiguration proxyConfiguration)
@@ -195,6 +868,84 @@ public class HttpUtils
         httpMessage.addHeader(HttpHeaders.USER_AGENT, userAgentHeaderValue);
     }
 
+    /**
+     * Reads the entity of a response while the connection is still open.
+     */
+    private interface BodyReader<T>
+    {
+        T read(HttpEntity entity, String charset, int statusCode, RequestDescriptor requestDescriptor) throws IOException, SmartlingApiException;
+    }
+
+    private static class DeadlineTimerHolder
+    {
+        private static final ScheduledExecutorService TIMER = createTimer();
+
+        private static ScheduledExecutorService createTimer()
+        {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("smartling-deadline"));
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+
+    private static class ResolvedProxy
+    {
+        private final ProxyConfiguration requested;
+        private final String[] systemProperties;
+        private final int[] timeouts;
+        private final boolean staleConnectionCheck;
+        private final ProxyConfiguration effective;
+        private final RequestConfig requestConfig;
+
+        private ResolvedProxy(final ProxyConfiguration requested, final String[] systemProperties, final int[] timeouts, final boolean staleConnectionCheck,
+                              final ProxyConfiguration effective, final RequestConfig requestConfig)
+        {
+            this.requested = requested;
+            this.systemProperties = systemProperties;
+            this.timeouts = timeouts;
+            this.staleConnectionCheck = staleConnectionCheck;
+            this.effective = effective;
+            this.requestConfig = requestConfig;
+        }
+
+        private boolean matches(final ProxyConfiguration proxyConfiguration, final String[] currentSystemProperties, final int[] currentTimeouts,
+                                final boolean currentStaleConnectionCheck)
+        {
+            return ObjectUtils.equals(requested, proxyConfiguration) && Arrays.equals(systemProperties, currentSystemProperties)
+                    && Arrays.equals(timeouts, currentTimeouts) && staleConnectionCheck == currentStaleConnectionCheck;
+        }
+    }
+
+    private static class PooledClientKey
+    {
+        private final ProxyConfiguration proxyConfiguration;
+        private final HttpClientConnectionManager connectionManager;
+
+        private PooledClientKey(final ProxyConfiguration proxyConfiguration, final HttpClientConnectionManager connectionManager)
+        {
+            this.proxyConfiguration = proxyConfiguration;
+            this.connectionManager = connectionManager;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            final PooledClientKey that = (PooledClientKey)o;
+            return connectionManager == that.connectionManager && ObjectUtils.equals(proxyConfiguration, that.proxyConfiguration);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * System.identityHashCode(connectionManager) + ObjectUtils.hashCode(proxyConfiguration);
+        }
+    }
+
     public static class ResponseDetails {
         private int statusCode;
         private Header[] headers;
@@ -0,0 +1,189 @@
+package com.smartling.api.sdk.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.HttpRequestRetryHandler;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controls how long pooled connections live, so calls don't run into sockets the server has already closed.
+ * <ul>
+ * <li>connections are kept alive as long as the server allows, but not longer than the maximum keep-alive;</li>
+ * <li>a background thread closes expired connections and connections idle longer than the idle timeout;</li>
+ * <li>a leased connection is checked for being stale before the request is sent, unless switched off;</li>
+ * <li>idempotent requests failing on a stale connection are retried.</li>
+ * </ul>
+ * A policy can be shared by several clients, they all use one eviction thread.
+ */
+public class KeepAlivePolicy implements ConnectionKeepAliveStrategy
+{
+    private static final Log logger = LogFactory.getLog(KeepAlivePolicy.class);
+
+    public static final long DEFAULT_EVICTION_INTERVAL_MILLIS = 5000;
+    public static final int DEFAULT_RETRY_COUNT = 3;
+
+    private final long maxKeepAliveMillis;
+    private final long idleTimeoutMillis;
+    private long evictionIntervalMillis = DEFAULT_EVICTION_INTERVAL_MILLIS;
+    private boolean staleConnectionCheckEnabled = true;
+
+    private final HttpRequestRetryHandler retryHandler = new StaleConnectionRetryHandler();
+    private final Set<PoolingHttpClientConnectionManager> connectionManagers = new CopyOnWriteArraySet<>();
+    private final AtomicLong evictedConnectionCount = new AtomicLong();
+    private final AtomicLong staleConnectionRetryCount = new AtomicLong();
+    private ScheduledExecutorService evictor;
+
+    /**
+     * @param maxKeepAlive longest time a connection is kept alive between calls
+     * @param idleTimeout time after which an idle connection is closed by the evictor
+     * @param unit unit of both times
+     */
+    public KeepAlivePolicy(final long maxKeepAlive, final long idleTimeout, final TimeUnit unit)
+    {
+        this.maxKeepAliveMillis = unit.toMillis(maxKeepAlive);
+        this.idleTimeoutMillis = unit.toMillis(idleTimeout);
+    }
+
+    public long getEvictionIntervalMillis()
+    {
+        return evictionIntervalMillis;
+    }
+
+    /**
+     * @param evictionIntervalMillis how often the evictor looks for expired and idle connections
+     */
+    public void setEvictionIntervalMillis(long evictionIntervalMillis)
+    {
+        this.evictionIntervalMillis = evictionIntervalMillis;
+    }
+
+    public boolean isStaleConnectionCheckEnabled()
+    {
+        return staleConnectionCheckEnabled;
+    }
+
+    /**
+     * @param staleConnectionCheckEnabled check a leased connection before sending a request over it, costs up to a millisecond per call
+     */
+    public void setStaleConnectionCheckEnabled(boolean staleConnectionCheckEnabled)
+    {
+        this.staleConnectionCheckEnabled = staleConnectionCheckEnabled;
+    }
+
+    @Override
+    public long getKeepAliveDuration(final HttpResponse response, final HttpContext context)
+    {
+        final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return serverKeepAlive > 0 ? Math.min(serverKeepAlive, maxKeepAliveMillis) : maxKeepAliveMillis;
+    }
+
+    public HttpRequestRetryHandler getRetryHandler()
+    {
+        return retryHandler;
+    }
+
+    /**
+     * @return number of connections closed by the evictor
+     */
+    public long getEvictedConnectionCount()
+    {
+        return evictedConnectionCount.get();
+    }
+
+    /**
+     * @return number of requests retried after a stale connection dropped them
+     */
+    public long getStaleConnectionRetryCount()
+    {
+        return staleConnectionRetryCount.get();
+    }
+
+    /**
+     * Starts evicting connections of the pool.
+     * @param connectionManager pool to watch
+     */
+    public synchronized void register(final PoolingHttpClientConnectionManager connectionManager)
+    {
+        connectionManagers.add(connectionManager);
+        if (evictor == null)
+        {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("smartling-connection-evictor"));
+            executor.scheduleWithFixedDelay(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    evictConnections();
+                }
+            }, evictionIntervalMillis, evictionIntervalMillis, TimeUnit.MILLISECONDS);
+            evictor = executor;
+        }
+    }
+
+    public void unregister(final PoolingHttpClientConnectionManager connectionManager)
+    {
+        connectionManagers.remove(connectionManager);
+    }
+
+    /**
+     * Stops the eviction thread.
+     */
+    public synchronized void shutdown()
+    {
+        if (evictor != null)
+        {
+            evictor.shutdownNow();
+            evictor = null;
+        }
+        connectionManagers.clear();
+    }
+
+    void evictConnections()
+    {
+        for (final PoolingHttpClientConnectionManager connectionManager : connectionManagers)
+        {
+            try
+            {
+                final int available = connectionManager.getTotalStats().getAvailable();
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+                evictedConnectionCount.addAndGet(Math.max(0, available - connectionManager.getTotalStats().getAvailable()));
+            }
+            catch (RuntimeException e)
+            {
+                logger.warn(String.format("Connections are not evicted: %s", e.getMessage()));
+            }
+        }
+    }
+
+    private class StaleConnectionRetryHandler extends DefaultHttpRequestRetryHandler
+    {
+        private StaleConnectionRetryHandler()
+        {
+            super(DEFAULT_RETRY_COUNT, false);
+        }
+
+        @Override
+        public boolean retryRequest(final IOException exception, final int executionCount, final HttpContext context)
+        {
+            final boolean retry = super.retryRequest(exception, executionCount, context);
+            if (retry && exception instanceof NoHttpResponseException)
+                staleConnectionRetryCount.incrementAndGet();
+            return retry;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.smartling.api.sdk.util;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a sliding window of the most recent call latencies and computes percentiles over it.
+ */
+public class LatencyTracker
+{
+    private static final int DEFAULT_WINDOW_SIZE = 256;
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyTracker()
+    {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public LatencyTracker(final int windowSize)
+    {
+        this.samples = new long[windowSize];
+    }
+
+    public synchronized void record(final long latencyMillis)
+    {
+        samples[next] = latencyMillis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length)
+            count++;
+    }
+
+    public synchronized int getSampleCount()
+    {
+        return count;
+    }
+
+    /**
+     * @param percentile percentile in range 0-100
+     * @return latency at the given percentile or -1 if nothing was recorded yet
+     */
+    public long getPercentile(final double percentile)
+    {
+        final long[] snapshot;
+        synchronized (this)
+        {
+            if (count == 0)
+                return -1;
+            snapshot = Arrays.copyOf(samples, count);
+        }
+
+        Arrays.sort(snapshot);
+        int index = (int)Math.ceil(percentile / 100.0 * snapshot.length) - 1;
+        index = Math.max(0, Math.min(snapshot.length - 1, index));
+        return snapshot[index];
+    }
+}
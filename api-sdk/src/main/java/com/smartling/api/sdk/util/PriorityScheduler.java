@@ -0,0 +1,218 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CallPriority;
+import com.smartling.api.sdk.CancellationToken;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits calls to the transport by {@link CallPriority}.
+ * Waiting interactive calls are always admitted before batch ones, and while interactive calls are queued or running
+ * batch calls may only hold a reduced number of slots, so a nightly sync can't slow down the user facing actions.
+ * A scheduler can be shared by several clients to bound the capacity of the whole application.
+ */
+public class PriorityScheduler
+{
+    private static final int PRIORITIES = CallPriority.values().length;
+    private static final int INTERACTIVE = CallPriority.INTERACTIVE.ordinal();
+    private static final int BATCH = CallPriority.BATCH.ordinal();
+
+    private final int maxConcurrentCalls;
+    private final int maxBatchCallsUnderLoad;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] slotFreed = new Condition[PRIORITIES];
+    private final int[] inFlight = new int[PRIORITIES];
+    private final int[] waiting = new int[PRIORITIES];
+    private final long[] admitted = new long[PRIORITIES];
+    private final long[] waitNanos = new long[PRIORITIES];
+
+    /**
+     * @param maxConcurrentCalls maximum number of calls in flight at once
+     * @param maxBatchCallsUnderLoad maximum number of batch calls in flight while interactive calls are queued or running
+     */
+    public PriorityScheduler(final int maxConcurrentCalls, final int maxBatchCallsUnderLoad)
+    {
+        if (maxConcurrentCalls <= 0)
+            throw new IllegalArgumentException("maxConcurrentCalls must be positive");
+
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxBatchCallsUnderLoad = Math.max(0, Math.min(maxBatchCallsUnderLoad, maxConcurrentCalls));
+        for (int i = 0; i < PRIORITIES; i++)
+            slotFreed[i] = lock.newCondition();
+    }
+
+    /**
+     * Waits until the call may be sent, but not longer than the call deadline or until the call is cancelled.
+     * @param priority priority of the call
+     * @param callContext context of the call, can be {@code NULL}
+     * @throws SmartlingApiException if the deadline is exceeded or the call is cancelled while waiting or the thread is interrupted
+     */
+    public void acquire(final CallPriority priority, final CallContext callContext) throws SmartlingApiException
+    {
+        final int index = priority.ordinal();
+        final long start = System.nanoTime();
+        final CancellationToken cancellationToken = callContext != null ? callContext.getCancellationToken() : null;
+        final Runnable wakeUp = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                lock.lock();
+                try
+                {
+                    slotFreed[index].signalAll();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+        };
+        if (cancellationToken != null && !cancellationToken.addListener(wakeUp))
+            throw new SmartlingApiException(String.format("Call cancelled in %s queue", priority));
+
+        lock.lock();
+        try
+        {
+            waiting[index]++;
+            try
+            {
+                while (!canAdmit(index))
+                {
+                    if (cancellationToken != null && cancellationToken.isCancelled())
+                        throw new SmartlingApiException(String.format("Call cancelled in %s queue", priority));
+
+                    if (callContext == null || !callContext.hasDeadline())
+                    {
+                        slotFreed[index].await();
+                    }
+                    else
+                    {
+                        final long remainingMillis = callContext.getRemainingMillis();
+                        if (remainingMillis <= 0)
+                            throw new SmartlingApiException(String.format("Call deadline exceeded in %s queue", priority));
+                        slotFreed[index].await(remainingMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+                inFlight[index]++;
+                admitted[index]++;
+                waitNanos[index] += System.nanoTime() - start;
+            }
+            finally
+            {
+                waiting[index]--;
+                // a batch call may be blocked by this waiter only
+                signalAll();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SmartlingApiException(e);
+        }
+        finally
+        {
+            lock.unlock();
+            if (cancellationToken != null)
+                cancellationToken.removeListener(wakeUp);
+        }
+    }
+
+    public void release(final CallPriority priority)
+    {
+        lock.lock();
+        try
+        {
+            inFlight[priority.ordinal()]--;
+            signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of calls of the priority waiting for a slot
+     */
+    public int getQueueDepth(final CallPriority priority)
+    {
+        lock.lock();
+        try
+        {
+            return waiting[priority.ordinal()];
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlightCalls(final CallPriority priority)
+    {
+        lock.lock();
+        try
+        {
+            return inFlight[priority.ordinal()];
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public long getAdmittedCalls(final CallPriority priority)
+    {
+        lock.lock();
+        try
+        {
+            return admitted[priority.ordinal()];
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return average time calls of the priority have spent in the queue
+     */
+    public long getAverageWaitMillis(final CallPriority priority)
+    {
+        lock.lock();
+        try
+        {
+            final int index = priority.ordinal();
+            return admitted[index] == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos[index] / admitted[index]);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private boolean canAdmit(final int index)
+    {
+        if (inFlight[INTERACTIVE] + inFlight[BATCH] >= maxConcurrentCalls)
+            return false;
+
+        if (index == INTERACTIVE)
+            return true;
+
+        if (waiting[INTERACTIVE] > 0)
+            return false;
+
+        return inFlight[INTERACTIVE] == 0 || inFlight[BATCH] < maxBatchCallsUnderLoad;
+    }
+
+    private void signalAll()
+    {
+        for (final Condition condition : slotFreed)
+            condition.signalAll();
+    }
+}
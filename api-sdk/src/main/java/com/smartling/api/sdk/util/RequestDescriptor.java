@@ -0,0 +1,66 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.OperationClass;
+
+/**
+ * Describes what an http call does, so the transport can isolate and schedule it.
+ */
+public final class RequestDescriptor
+{
+    private final OperationClass operationClass;
+    private final String projectId;
+    private final boolean expectContinue;
+
+    private RequestDescriptor(final OperationClass operationClass, final String projectId, final boolean expectContinue)
+    {
+        this.operationClass = operationClass;
+        this.projectId = projectId;
+        this.expectContinue = expectContinue;
+    }
+
+    public static RequestDescriptor of(final OperationClass operationClass)
+    {
+        return new RequestDescriptor(operationClass, null, false);
+    }
+
+    public static RequestDescriptor of(final OperationClass operationClass, final String projectId)
+    {
+        return new RequestDescriptor(operationClass, projectId, false);
+    }
+
+    /**
+     * @return descriptor of the same call sending its body only after the server answered {@code 100 Continue}
+     */
+    public RequestDescriptor withExpectContinue()
+    {
+        return new RequestDescriptor(operationClass, projectId, true);
+    }
+
+    public OperationClass getOperationClass()
+    {
+        return operationClass;
+    }
+
+    /**
+     * @return project the call works on, {@code NULL} for calls not bound to a project
+     */
+    public String getProjectId()
+    {
+        return projectId;
+    }
+
+    public boolean isExpectContinue()
+    {
+        return expectContinue;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RequestDescriptor{" +
+                "operationClass=" + operationClass +
+                ", projectId='" + projectId + '\'' +
+                ", expectContinue=" + expectContinue +
+                '}';
+    }
+}
@@ -0,0 +1,220 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.dto.file.StringResponse;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the heap used for response bodies. A body is kept in the heap up to a threshold and written to a temporary file
+ * beyond it, so one large download can't exhaust the heap of a small worker. The bodies kept in the heap share a global
+ * heap limit as well, once it is reached further bodies go to disk whatever their size.
+ * <p>
+ * A body kept in the heap counts against the limit with its decoded text until its response is closed, responses buffered
+ * on disk keep their file until they are closed, see {@link StringResponse#close()}. A response which is never closed keeps
+ * its share of the limit. A buffer can be shared by several clients to cap them together.
+ */
+public class ResponseBuffer
+{
+    private static final Log logger = LogFactory.getLog(ResponseBuffer.class);
+
+    public static final long DEFAULT_HEAP_THRESHOLD_BYTES = 4 * 1024 * 1024;
+    public static final long DEFAULT_MAX_HEAP_BYTES = 64 * 1024 * 1024;
+
+    // the bytes of a body and its decoded text, which takes at most two bytes per char and a char per byte
+    private static final int HEAP_BYTES_PER_BODY_BYTE = 3;
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+    private static final String TEMP_FILE_PREFIX = "smartling-response";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final long heapThresholdBytes;
+    private final long maxHeapBytes;
+    private final AtomicLong heapBytes = new AtomicLong();
+    private final AtomicLong spilledResponseCount = new AtomicLong();
+    private volatile File tempDirectory;
+
+    public ResponseBuffer()
+    {
+        this(DEFAULT_HEAP_THRESHOLD_BYTES, DEFAULT_MAX_HEAP_BYTES);
+    }
+
+    /**
+     * @param heapThresholdBytes size up to which a body is kept in the heap
+     * @param maxHeapBytes heap all the bodies kept in the heap can take together with their decoded text
+     */
+    public ResponseBuffer(final long heapThresholdBytes, final long maxHeapBytes)
+    {
+        this.heapThresholdBytes = heapThresholdBytes;
+        this.maxHeapBytes = maxHeapBytes;
+    }
+
+    public long getHeapThresholdBytes()
+    {
+        return heapThresholdBytes;
+    }
+
+    public long getMaxHeapBytes()
+    {
+        return maxHeapBytes;
+    }
+
+    /**
+     * @return heap taken by bodies being read right now and by the responses kept in the heap which are not closed yet
+     */
+    public long getHeapBytes()
+    {
+        return heapBytes.get();
+    }
+
+    public long getSpilledResponseCount()
+    {
+        return spilledResponseCount.get();
+    }
+
+    public File getTempDirectory()
+    {
+        return tempDirectory;
+    }
+
+    /**
+     * @param tempDirectory directory of the temporary files, {@code NULL} uses the default temporary directory
+     */
+    public void setTempDirectory(final File tempDirectory)
+    {
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Reads the body into the heap, or into a temporary file if it is larger than the threshold or the heap limit is reached.
+     * @param contentLength declared length of the body, negative if unknown
+     */
+    StringResponse buffer(final InputStream inputStream, final long contentLength, final String encoding, final boolean success) throws IOException
+    {
+        if (contentLength > heapThresholdBytes)
+            return spill(inputStream, null, encoding, success);
+        if (contentLength >= 0)
+            return bufferDeclaredLength(inputStream, contentLength, encoding, success);
+
+        final ByteArrayOutputStream heapBuffer = new ByteArrayOutputStream(CHUNK_SIZE);
+        final byte[] chunk = new byte[CHUNK_SIZE];
+        long reserved = 0;
+        try
+        {
+            int read;
+            while ((read = inputStream.read(chunk)) != -1)
+            {
+                if (heapBuffer.size() + read > heapThresholdBytes || !reserve(heapBytes(read)))
+                {
+                    heapBuffer.write(chunk, 0, read);
+                    return spill(inputStream, heapBuffer, encoding, success);
+                }
+                reserved += heapBytes(read);
+                heapBuffer.write(chunk, 0, read);
+            }
+
+            final byte[] contentsRaw = heapBuffer.toByteArray();
+            final StringResponse response = new StringResponse(new String(contentsRaw, encoding), contentsRaw, encoding, success,
+                    new HeapReservation(reserved));
+            reserved = 0;
+            return response;
+        }
+        finally
+        {
+            heapBytes.addAndGet(-reserved);
+        }
+    }
+
+    /**
+     * Reserves the heap of the declared length at once and reads the body into an array of that size.
+     */
+    private StringResponse bufferDeclaredLength(final InputStream inputStream, final long contentLength, final String encoding, final boolean success)
+            throws IOException
+    {
+        final long reserved = heapBytes(contentLength);
+        if (!reserve(reserved))
+            return spill(inputStream, null, encoding, success);
+
+        boolean read = false;
+        try
+        {
+            final byte[] contentsRaw = HttpUtils.toByteArray(inputStream, contentLength);
+            final StringResponse response = new StringResponse(new String(contentsRaw, encoding), contentsRaw, encoding, success,
+                    new HeapReservation(reserved));
+            read = true;
+            return response;
+        }
+        finally
+        {
+            if (!read)
+                heapBytes.addAndGet(-reserved);
+        }
+    }
+
+    private static long heapBytes(final long bodyBytes)
+    {
+        return bodyBytes * HEAP_BYTES_PER_BODY_BYTE;
+    }
+
+    private boolean reserve(final long bytes)
+    {
+        while (true)
+        {
+            final long current = heapBytes.get();
+            if (current + bytes > maxHeapBytes)
+                return false;
+            if (heapBytes.compareAndSet(current, current + bytes))
+                return true;
+        }
+    }
+
+    private StringResponse spill(final InputStream inputStream, final ByteArrayOutputStream readBytes, final String encoding, final boolean success)
+            throws IOException
+    {
+        final File contentsFile = File.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX, tempDirectory);
+        try (OutputStream out = new FileOutputStream(contentsFile))
+        {
+            if (readBytes != null)
+                readBytes.writeTo(out);
+            IOUtils.copyLarge(inputStream, out);
+        }
+        catch (IOException e)
+        {
+            FileUtils.deleteQuietly(contentsFile);
+            throw e;
+        }
+
+        spilledResponseCount.incrementAndGet();
+        logger.debug(String.format("Response of %d bytes buffered in '%s'", contentsFile.length(), contentsFile));
+        return new StringResponse(contentsFile, encoding, success);
+    }
+
+    /**
+     * Heap reserved for a response, given back once when the response is closed.
+     */
+    private class HeapReservation implements Closeable
+    {
+        private final AtomicLong bytes;
+
+        HeapReservation(final long bytes)
+        {
+            this.bytes = new AtomicLong(bytes);
+        }
+
+        @Override
+        public void close()
+        {
+            heapBytes.addAndGet(-bytes.getAndSet(0));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.OperationClass;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of buffers the JSON responses of status, listing, upload and authentication calls are read into.
+ * These responses are parsed and thrown away, so the buffer goes back to the pool as soon as the body is decoded,
+ * which saves allocating and growing a new array on every call of frequent status polling.
+ * Downloaded files are read as before, their bytes are handed over to the caller.
+ * <p>
+ * A body which doesn't fit into a buffer continues to be read as if there were no pool.
+ */
+public class ResponseBufferPool
+{
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_POOLED_BUFFERS = 16;
+
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> buffers;
+    private final AtomicLong allocatedBufferCount = new AtomicLong();
+    private final AtomicLong reusedBufferCount = new AtomicLong();
+
+    public ResponseBufferPool()
+    {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+    }
+
+    /**
+     * @param bufferSize size of a buffer, the largest body read through the pool
+     * @param maxPooledBuffers buffers kept between calls, more of them are allocated while more responses are read at once
+     */
+    public ResponseBufferPool(final int bufferSize, final int maxPooledBuffers)
+    {
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(maxPooledBuffers);
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    /**
+     * @return buffers currently waiting in the pool
+     */
+    public int getPooledBufferCount()
+    {
+        return buffers.size();
+    }
+
+    public long getAllocatedBufferCount()
+    {
+        return allocatedBufferCount.get();
+    }
+
+    public long getReusedBufferCount()
+    {
+        return reusedBufferCount.get();
+    }
+
+    /**
+     * @return whether the response of the call is read through the pool
+     */
+    boolean isPooled(final RequestDescriptor requestDescriptor, final long contentLength)
+    {
+        return requestDescriptor != null && requestDescriptor.getOperationClass() != OperationClass.DOWNLOAD && contentLength <= bufferSize;
+    }
+
+    byte[] acquire()
+    {
+        final byte[] buffer = buffers.poll();
+        if (buffer != null)
+        {
+            reusedBufferCount.incrementAndGet();
+            return buffer;
+        }
+        allocatedBufferCount.incrementAndGet();
+        return new byte[bufferSize];
+    }
+
+    void release(final byte[] buffer)
+    {
+        // the buffer is dropped if the pool is full
+        buffers.offer(buffer);
+    }
+}
@@ -0,0 +1,28 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.dto.file.StringResponse;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the body of a response while it is received, instead of buffering it first, see
+ * {@link HttpUtils#executeHttpCall(org.apache.http.client.methods.HttpRequestBase, com.smartling.api.sdk.ProxyConfiguration, RequestDescriptor, ResponseStreamHandler)}.
+ * @param <T> result of the call
+ */
+public interface ResponseStreamHandler<T>
+{
+    /**
+     * Reads the body of a successful response. The connection is released once the handler returns,
+     * a body which isn't read to the end closes the connection instead of returning it to the pool.
+     * @param body stream of the body
+     * @param encoding encoding of the body
+     */
+    T handleStream(InputStream body, String encoding) throws IOException, SmartlingApiException;
+
+    /**
+     * Handles a response with any other status, its body is buffered as usual and the response is closed once the handler returns.
+     */
+    T handleResponse(StringResponse response) throws SmartlingApiException;
+}
@@ -5,6 +5,7 @@ import com.smartling.api.sdk.dto.file.StringResponse;
 import com.smartling.api.sdk.exceptions.SmartlingApiException;
 import com.smartling.api.sdk.file.response.Response;
 import com.smartling.api.sdk.util.HttpUtils;
+import com.smartling.api.sdk.util.RequestDescriptor;
 import com.smartling.web.api.v2.ResponseCode;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
@@ -14,6 +15,7 @@ import org.mockito.ArgumentCaptor;
 
 import static mockit.Deencapsulation.setField;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -54,7 +56,7 @@ public class AuthApiClientTest
         proxyConfiguration = mock(ProxyConfiguration.class);
         authApiClient = new AuthApiClient(proxyConfiguration, "https://api.smartling.com");
         setField(authApiClient, "httpUtils", httpUtils);
-        when(httpUtils.executeHttpCall(requestCaptor.capture(), eq(proxyConfiguration))).thenReturn(response);
+        when(httpUtils.executeHttpCall(requestCaptor.capture(), eq(proxyConfiguration), any(RequestDescriptor.class))).thenReturn(response);
     }
 
     @Test
@@ -0,0 +1,200 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CancellationToken;
+import com.smartling.api.sdk.dto.file.StringResponse;
+import com.smartling.api.sdk.dto.file.UploadFileData;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import com.smartling.api.sdk.file.parameters.FileImportParameterBuilder;
+import com.smartling.api.sdk.file.parameters.FileListSearchParameterBuilder;
+import com.smartling.api.sdk.file.parameters.FileUploadParameterBuilder;
+import com.smartling.api.sdk.file.parameters.GetFileParameterBuilder;
+import com.smartling.api.sdk.file.response.FileImportSmartlingData;
+import com.smartling.api.sdk.file.response.FileStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncFileApiClientTest
+{
+    private StreamingFileApiClient fileApiClient;
+    private ExecutorService executorService;
+    private AsyncFileApiClient asyncFileApiClient;
+
+    @Before
+    public void setUp()
+    {
+        fileApiClient = mock(StreamingFileApiClient.class);
+        executorService = Executors.newSingleThreadExecutor();
+        asyncFileApiClient = new AsyncFileApiClient(fileApiClient, executorService);
+    }
+
+    @After
+    public void tearDown()
+    {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldReturnResult() throws Exception
+    {
+        FileStatus fileStatus = new FileStatus();
+        when(fileApiClient.getFileStatus("fileUri")).thenReturn(fileStatus);
+
+        assertSame(fileStatus, asyncFileApiClient.getFileStatus("fileUri").get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldUploadBytes() throws Exception
+    {
+        UploadFileData uploadFileData = new UploadFileData();
+        byte[] contents = "key=value".getBytes("UTF-8");
+        FileUploadParameterBuilder fileUploadParameterBuilder = new FileUploadParameterBuilder(FileType.JAVA_PROPERTIES, "fileUri");
+        when(fileApiClient.uploadFile(contents, "fileUri", fileUploadParameterBuilder)).thenReturn(uploadFileData);
+
+        assertSame(uploadFileData, asyncFileApiClient.uploadFile(contents, "fileUri", fileUploadParameterBuilder).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldImportTranslationsFromBuffer() throws Exception
+    {
+        FileImportSmartlingData fileImportSmartlingData = new FileImportSmartlingData();
+        ByteBuffer contents = ByteBuffer.wrap("key=value".getBytes("UTF-8"));
+        FileImportParameterBuilder fileImportParameterBuilder = new FileImportParameterBuilder("de-DE", "UTF-8", FileType.JAVA_PROPERTIES, "fileUri");
+        when(fileApiClient.importTranslations(contents, "fileUri", fileImportParameterBuilder)).thenReturn(fileImportSmartlingData);
+
+        assertSame(fileImportSmartlingData, asyncFileApiClient.importTranslations(contents, "fileUri", fileImportParameterBuilder).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldReturnCountOfStreamedFileList() throws Exception
+    {
+        FileListSearchParameterBuilder fileListSearchParameterBuilder = new FileListSearchParameterBuilder();
+        FileListItemConsumer consumer = mock(FileListItemConsumer.class);
+        when(fileApiClient.getFilesList(fileListSearchParameterBuilder, consumer)).thenReturn(42);
+
+        assertEquals(42, asyncFileApiClient.getFilesList(fileListSearchParameterBuilder, consumer).get(1, TimeUnit.SECONDS).intValue());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldRejectStreamingCallOfPlainClient() throws Exception
+    {
+        new AsyncFileApiClient(mock(FileApiClient.class), executorService)
+                .uploadFile(new byte[0], "fileUri", new FileUploadParameterBuilder(FileType.JAVA_PROPERTIES, "fileUri"));
+    }
+
+    @Test
+    public void shouldAbortInFlightRequestOnCancel() throws Exception
+    {
+        final HttpGet inFlightRequest = new HttpGet("https://api.smartling.com");
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch aborted = new CountDownLatch(1);
+        when(fileApiClient.getFile(any(GetFileParameterBuilder.class))).thenAnswer(new Answer<StringResponse>()
+        {
+            @Override
+            public StringResponse answer(final InvocationOnMock invocation) throws Throwable
+            {
+                CallContext.current().getCancellationToken().register(inFlightRequest);
+                started.countDown();
+                while (!inFlightRequest.isAborted())
+                    Thread.sleep(5);
+                aborted.countDown();
+                throw new SmartlingApiException("Call cancelled");
+            }
+        });
+
+        Future<StringResponse> future = asyncFileApiClient.getFile(new GetFileParameterBuilder("fileUri", "en-US"));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        assertTrue(future.cancel(false));
+        assertTrue(aborted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldAbortInFlightRequestWhenCallerTokenIsCancelled() throws Exception
+    {
+        final HttpGet inFlightRequest = new HttpGet("https://api.smartling.com");
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch aborted = new CountDownLatch(1);
+        when(fileApiClient.getFile(any(GetFileParameterBuilder.class))).thenAnswer(new Answer<StringResponse>()
+        {
+            @Override
+            public StringResponse answer(final InvocationOnMock invocation) throws Throwable
+            {
+                CallContext.current().getCancellationToken().register(inFlightRequest);
+                started.countDown();
+                while (!inFlightRequest.isAborted())
+                    Thread.sleep(5);
+                aborted.countDown();
+                throw new SmartlingApiException("Call cancelled");
+            }
+        });
+
+        final CancellationToken callerToken = new CancellationToken();
+        CallContext.attach(new CallContext().cancellationToken(callerToken));
+        try
+        {
+            asyncFileApiClient.getFile(new GetFileParameterBuilder("fileUri", "en-US"));
+        }
+        finally
+        {
+            CallContext.detach();
+        }
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        callerToken.cancel();
+        assertTrue(aborted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldNotCancelCallerTokenOnCancel() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(fileApiClient.getFileStatus("fileUri")).thenAnswer(new Answer<FileStatus>()
+        {
+            @Override
+            public FileStatus answer(final InvocationOnMock invocation) throws Throwable
+            {
+                started.countDown();
+                release.await(1, TimeUnit.SECONDS);
+                return new FileStatus();
+            }
+        });
+
+        final CancellationToken callerToken = new CancellationToken();
+        final Future<FileStatus> future;
+        CallContext.attach(new CallContext().cancellationToken(callerToken));
+        try
+        {
+            future = asyncFileApiClient.getFileStatus("fileUri");
+        }
+        finally
+        {
+            CallContext.detach();
+        }
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        assertTrue(future.cancel(false));
+        release.countDown();
+        assertFalse(callerToken.isCancelled());
+    }
+}
@@ -0,0 +1,128 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.dto.file.UploadFileData;
+import com.smartling.api.sdk.file.parameters.FileUploadParameterBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DeduplicatingFileApiClientTest
+{
+    private static final String PROJECT_ID = "testProject";
+    private static final String FILE_URI = "strings.properties";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private StreamingFileApiClient fileApiClient;
+    private Path indexPath;
+    private UploadIndex uploadIndex;
+    private DeduplicatingFileApiClient deduplicatingClient;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        fileApiClient = mock(StreamingFileApiClient.class);
+        when(fileApiClient.uploadFile(any(byte[].class), anyString(), any(FileUploadParameterBuilder.class))).thenReturn(new UploadFileData());
+        indexPath = temporaryFolder.getRoot().toPath().resolve("uploads.idx");
+        uploadIndex = new UploadIndex(indexPath);
+        deduplicatingClient = new DeduplicatingFileApiClient(fileApiClient, PROJECT_ID, uploadIndex);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        uploadIndex.close();
+    }
+
+    @Test
+    public void shouldSkipUnchangedUpload() throws Exception
+    {
+        byte[] contents = "key=value".getBytes("UTF-8");
+
+        UploadFileData first = deduplicatingClient.uploadFile(contents, FILE_URI, uploadParameters());
+        UploadFileData second = deduplicatingClient.uploadFile(contents, FILE_URI, uploadParameters());
+
+        verify(fileApiClient, times(1)).uploadFile(any(byte[].class), anyString(), any(FileUploadParameterBuilder.class));
+        assertFalse(first.isSkipped());
+        assertTrue(second.isSkipped());
+    }
+
+    @Test
+    public void shouldUploadChangedContentParametersOrWhenForced() throws Exception
+    {
+        deduplicatingClient.uploadFile("key=value".getBytes("UTF-8"), FILE_URI, uploadParameters());
+        deduplicatingClient.uploadFile("key=changed".getBytes("UTF-8"), FILE_URI, uploadParameters());
+        deduplicatingClient.uploadFile("key=changed".getBytes("UTF-8"), FILE_URI,
+                uploadParameters().directives(Collections.singletonMap("smartling.placeholder_format", "java")));
+        deduplicatingClient.setForceUpload(true);
+        deduplicatingClient.uploadFile("key=changed".getBytes("UTF-8"), FILE_URI, uploadParameters());
+
+        verify(fileApiClient, times(4)).uploadFile(any(byte[].class), anyString(), any(FileUploadParameterBuilder.class));
+    }
+
+    @Test
+    public void shouldKeepIndexBetweenRuns() throws Exception
+    {
+        byte[] contents = "key=value".getBytes("UTF-8");
+        deduplicatingClient.uploadFile(contents, FILE_URI, uploadParameters());
+        deduplicatingClient.uploadFile("key=changed".getBytes("UTF-8"), FILE_URI, uploadParameters());
+        deduplicatingClient.uploadFile(contents, FILE_URI, uploadParameters());
+        uploadIndex.close();
+
+        uploadIndex = new UploadIndex(indexPath);
+        UploadFileData uploadFileData = new DeduplicatingFileApiClient(fileApiClient, PROJECT_ID, uploadIndex)
+                .uploadFile(contents, FILE_URI, uploadParameters());
+
+        assertTrue(uploadFileData.isSkipped());
+        assertEquals(1, uploadIndex.size());
+    }
+
+    @Test
+    public void shouldUploadAgainAfterDelete() throws Exception
+    {
+        byte[] contents = "key=value".getBytes("UTF-8");
+        deduplicatingClient.uploadFile(contents, FILE_URI, uploadParameters());
+        deduplicatingClient.deleteFile(FILE_URI);
+
+        UploadFileData uploadFileData = deduplicatingClient.uploadFile(contents, FILE_URI, uploadParameters());
+
+        verify(fileApiClient).deleteFile(FILE_URI);
+        verify(fileApiClient, times(2)).uploadFile(any(byte[].class), anyString(), any(FileUploadParameterBuilder.class));
+        assertFalse(uploadFileData.isSkipped());
+    }
+
+    @Test
+    public void shouldUploadAgainAfterRename() throws Exception
+    {
+        byte[] contents = "key=value".getBytes("UTF-8");
+        deduplicatingClient.uploadFile(contents, FILE_URI, uploadParameters());
+        deduplicatingClient.renameFile(FILE_URI, "renamed.properties");
+
+        UploadFileData uploadFileData = deduplicatingClient.uploadFile(contents, FILE_URI, uploadParameters());
+
+        verify(fileApiClient).renameFile(FILE_URI, "renamed.properties");
+        assertFalse(uploadFileData.isSkipped());
+        assertEquals(1, uploadIndex.size());
+    }
+
+    private static FileUploadParameterBuilder uploadParameters()
+    {
+        return new FileUploadParameterBuilder(FileType.JAVA_PROPERTIES, FILE_URI).charset("UTF-8");
+    }
+}
@@ -0,0 +1,92 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.auth.TokenProvider;
+import com.smartling.api.sdk.util.HttpUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static mockit.Deencapsulation.getField;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class FileApiClientFactoryTest
+{
+    private FileApiClientFactory factory;
+
+    @Before
+    public void setUp()
+    {
+        factory = new FileApiClientImpl.Builder()
+                .withCustomTokenProvider(mock(TokenProvider.class))
+                .maxCachedProjects(2)
+                .buildFactory();
+    }
+
+    @After
+    public void tearDown()
+    {
+        factory.shutdown();
+    }
+
+    @Test
+    public void shouldReuseClientOfProject()
+    {
+        FileApiClient client = factory.forProject("project1");
+
+        assertSame(client, factory.forProject("project1"));
+        assertNotSame(client, factory.forProject("project2"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedProject()
+    {
+        FileApiClient client1 = factory.forProject("project1");
+        FileApiClient client2 = factory.forProject("project2");
+        factory.forProject("project1");
+
+        factory.forProject("project3");
+
+        assertEquals(2, factory.getCachedProjectCount());
+        assertSame(client1, factory.forProject("project1"));
+        assertNotSame(client2, factory.forProject("project2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireTokenProvider()
+    {
+        new FileApiClientImpl.Builder().buildFactory();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireProjectIdOfSingleClient()
+    {
+        new FileApiClientImpl.Builder()
+                .withCustomTokenProvider(mock(TokenProvider.class))
+                .build();
+    }
+
+    @Test
+    public void shouldPoolConnectionsUnlessSwitchedOff()
+    {
+        assertNotNull(getField(getField(factory, "httpUtils"), "pooledConnectionManager"));
+
+        FileApiClientFactory unpooledFactory = new FileApiClientImpl.Builder()
+                .withCustomTokenProvider(mock(TokenProvider.class))
+                .maxConnections(0)
+                .buildFactory();
+        try
+        {
+            HttpUtils httpUtils = getField(unpooledFactory, "httpUtils");
+            assertNull(getField(httpUtils, "pooledConnectionManager"));
+        }
+        finally
+        {
+            unpooledFactory.shutdown();
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.smartling.api.sdk.file;
 
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CancellationToken;
 import com.smartling.api.sdk.ProxyConfiguration;
+import com.smartling.api.sdk.UploadConfiguration;
+import com.smartling.api.sdk.UploadProgress;
+import com.smartling.api.sdk.UploadProgressListener;
 import com.smartling.api.sdk.auth.AuthenticationToken;
 import com.smartling.api.sdk.auth.TokenProvider;
 import com.smartling.api.sdk.dto.file.FileLastModified;
@@ -16,10 +21,21 @@ import com.smartling.api.sdk.file.parameters.GetOriginalFileParameterBuilder;
 import com.smartling.api.sdk.file.response.EmptyResponse;
 import com.smartling.api.sdk.file.response.FileImportSmartlingData;
 import com.smartling.api.sdk.file.response.FileList;
+import com.smartling.api.sdk.file.response.FileListItem;
 import com.smartling.api.sdk.file.response.FileLocaleStatus;
 import com.smartling.api.sdk.file.response.FileStatus;
 import com.smartling.api.sdk.util.DateFormatter;
 import com.smartling.api.sdk.util.HttpUtils;
+import com.smartling.api.sdk.util.RequestDescriptor;
+import com.smartling.api.sdk.util.ResponseStreamHandler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -29,16 +45,46 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 import static mockit.Deencapsulation.setField;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class FileApiClientImplTest
@@ -54,7 +100,7 @@ public class FileApiClientImplTest
     @Rule
     public ExpectedException expectedEx = ExpectedException.none();
 
-    private FileApiClient fileApiClient;
+    private StreamingFileApiClient fileApiClient;
     private HttpUtils httpUtils;
     private StringResponse response;
     private ArgumentCaptor<HttpRequestBase> requestCaptor = ArgumentCaptor.forClass(HttpRequestBase.class);
@@ -65,7 +111,7 @@ public class FileApiClientImplTest
     {
         TokenProvider tokenProvider = mock(TokenProvider.class);
         proxyConfiguration = mock(ProxyConfiguration.class);
-        fileApiClient = new FileApiClientImpl.Builder(PROJECT_ID)
+        fileApiClient = (StreamingFileApiClient)new FileApiClientImpl.Builder(PROJECT_ID)
                 .authWithUserIdAndSecret("userId", "userSecret")
                 .proxyConfiguration(proxyConfiguration)
                 .withCustomTokenProvider(tokenProvider)
@@ -75,7 +121,7 @@ public class FileApiClientImplTest
         response = mock(StringResponse.class);
         when(tokenProvider.getAuthenticationToken()).thenReturn(new AuthenticationToken("userSecret", "BEARER"));
         when(response.isSuccess()).thenReturn(true);
-        when(httpUtils.executeHttpCall(requestCaptor.capture(), eq(proxyConfiguration))).thenReturn(response);
+        when(httpUtils.executeHttpCall(requestCaptor.capture(), eq(proxyConfiguration), any(RequestDescriptor.class))).thenReturn(response);
     }
 
     @Test
@@ -109,6 +155,89 @@ public class FileApiClientImplTest
         assertEquals("https://api.smartling.com/files-api/v2/projects/testProject/file", request.getURI().toString());
     }
 
+    @Test
+    public void testUploadFileFromBytesHasExactLengthAndIsRepeatable() throws Exception
+    {
+        when(response.getContents()).thenReturn(ResponseExamples.UPLOAD_RESPONSE);
+        fileApiClient.uploadFile("key=value".getBytes(CHARSET), FILE_URI, getFileUploadParameterBuilder().charset(CHARSET));
+
+        HttpEntity entity = ((HttpPost)requestCaptor.getValue()).getEntity();
+        ByteArrayOutputStream firstAttempt = new ByteArrayOutputStream();
+        entity.writeTo(firstAttempt);
+        ByteArrayOutputStream secondAttempt = new ByteArrayOutputStream();
+        entity.writeTo(secondAttempt);
+
+        assertTrue(entity.isRepeatable());
+        assertEquals(firstAttempt.size(), entity.getContentLength());
+        assertEquals(firstAttempt.toString(CHARSET), secondAttempt.toString(CHARSET));
+        assertTrue(firstAttempt.toString(CHARSET).contains("key=value"));
+    }
+
+    @Test
+    public void testUploadFileFromMappedPath() throws Exception
+    {
+        File fileToUpload = File.createTempFile("upload", ".properties");
+        try
+        {
+            FileUtils.writeStringToFile(fileToUpload, "key=value", CHARSET);
+            when(response.getContents()).thenReturn(ResponseExamples.UPLOAD_RESPONSE);
+            fileApiClient.uploadFile(fileToUpload.toPath(), getFileUploadParameterBuilder().charset(CHARSET));
+
+            HttpEntity entity = ((HttpPost)requestCaptor.getValue()).getEntity();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            entity.writeTo(body);
+
+            assertEquals(body.size(), entity.getContentLength());
+            assertTrue(body.toString(CHARSET).contains("filename=\"" + fileToUpload.getName() + "\""));
+            assertTrue(body.toString(CHARSET).contains("key=value"));
+        }
+        finally
+        {
+            fileToUpload.delete();
+        }
+    }
+
+    @Test
+    public void testUploadFileFromPathTooLargeToMapIsSentFromDisk() throws Exception
+    {
+        File fileToUpload = File.createTempFile("upload", ".properties");
+        try (RandomAccessFile sparseFile = new RandomAccessFile(fileToUpload, "rw"))
+        {
+            sparseFile.setLength(Integer.MAX_VALUE + 1L);
+            when(response.getContents()).thenReturn(ResponseExamples.UPLOAD_RESPONSE);
+            fileApiClient.uploadFile(fileToUpload.toPath(), getFileUploadParameterBuilder().charset(CHARSET));
+
+            HttpEntity entity = ((HttpPost)requestCaptor.getValue()).getEntity();
+            assertTrue(entity.getContentLength() > Integer.MAX_VALUE);
+        }
+        finally
+        {
+            fileToUpload.delete();
+        }
+    }
+
+    @Test
+    public void testUploadFileReturnsDigestComputedWhileSending() throws Exception
+    {
+        UploadConfiguration uploadConfiguration = new UploadConfiguration();
+        uploadConfiguration.setDigestAlgorithm("SHA-256");
+        setField(fileApiClient, "uploadConfiguration", uploadConfiguration);
+        when(response.getContents()).thenReturn(ResponseExamples.UPLOAD_RESPONSE);
+        when(httpUtils.executeHttpCall(any(HttpRequestBase.class), eq(proxyConfiguration), any(RequestDescriptor.class))).thenAnswer(new Answer<StringResponse>()
+        {
+            @Override
+            public StringResponse answer(InvocationOnMock invocation) throws Throwable
+            {
+                ((HttpPost)invocation.getArguments()[0]).getEntity().writeTo(new ByteArrayOutputStream());
+                return response;
+            }
+        });
+
+        UploadFileData uploadFileData = fileApiClient.uploadFile("key=value".getBytes(CHARSET), FILE_URI, getFileUploadParameterBuilder().charset(CHARSET));
+
+        assertEquals(DigestUtils.sha256Hex("key=value"), uploadFileData.getContentDigest());
+    }
+
     @Test
     public void testDeleteFile() throws Exception
     {
@@ -239,6 +368,81 @@ public class FileApiClientImplTest
         assertEquals("FileListItem[fileUri=3-namespace-explicit.xml,lastUploaded=2015-07-29T10:34:30+0000,fileType=xml]", apiResponse.getItems().get(0).toString());
     }
 
+    @Test
+    public void testGetFilesListStreamsItems() throws Exception
+    {
+        when(httpUtils.executeHttpCall(requestCaptor.capture(), eq(proxyConfiguration), any(RequestDescriptor.class), any(ResponseStreamHandler.class)))
+                .thenAnswer(new Answer<Object>()
+                {
+                    @Override
+                    public Object answer(final InvocationOnMock invocation) throws Throwable
+                    {
+                        ResponseStreamHandler<?> handler = (ResponseStreamHandler<?>)invocation.getArguments()[3];
+                        return handler.handleStream(new ByteArrayInputStream(ResponseExamples.FILE_LIST_RESPONSE.getBytes(CHARSET)), CHARSET);
+                    }
+                });
+        final List<String> fileUris = new ArrayList<>();
+
+        int totalCount = fileApiClient.getFilesList(new FileListSearchParameterBuilder().withLimit(2), new FileListItemConsumer()
+        {
+            @Override
+            public void accept(final FileListItem item)
+            {
+                fileUris.add(item.getFileUri());
+            }
+        });
+
+        assertEquals(2, totalCount);
+        assertEquals(Arrays.asList("3-namespace-explicit.xml", "test-client-id.xml"), fileUris);
+        assertEquals("https://api.smartling.com/files-api/v2/projects/testProject/files/list?limit=2", requestCaptor.getValue().getURI().toString());
+    }
+
+    @Test
+    public void testGetFilesListStreamingFailsOnUnexpectedResponse() throws Exception
+    {
+        final List<String> bodies = Arrays.asList("[]", "{\"response\":{\"data\":{\"totalCount\":\"many\"}}}", "{\"response\" 1}");
+        for (final String body : bodies)
+        {
+            when(httpUtils.executeHttpCall(requestCaptor.capture(), eq(proxyConfiguration), any(RequestDescriptor.class), any(ResponseStreamHandler.class)))
+                    .thenAnswer(new Answer<Object>()
+                    {
+                        @Override
+                        public Object answer(final InvocationOnMock invocation) throws Throwable
+                        {
+                            ResponseStreamHandler<?> handler = (ResponseStreamHandler<?>)invocation.getArguments()[3];
+                            return handler.handleStream(new ByteArrayInputStream(body.getBytes(CHARSET)), CHARSET);
+                        }
+                    });
+
+            try
+            {
+                fileApiClient.getFilesList(new FileListSearchParameterBuilder(), mock(FileListItemConsumer.class));
+                fail("Exception expected for " + body);
+            }
+            catch (SmartlingApiException e)
+            {
+                assertEquals("Can't parse file list response as JSON", e.getMessage());
+            }
+        }
+    }
+
+    @Test(expected = SmartlingApiException.class)
+    public void testGetFilesListStreamingFailsOnErrorResponse() throws Exception
+    {
+        when(response.getContents()).thenReturn(ResponseExamples.ERROR_RESPONSE);
+        when(httpUtils.executeHttpCall(requestCaptor.capture(), eq(proxyConfiguration), any(RequestDescriptor.class), any(ResponseStreamHandler.class)))
+                .thenAnswer(new Answer<Object>()
+                {
+                    @Override
+                    public Object answer(final InvocationOnMock invocation) throws Throwable
+                    {
+                        return ((ResponseStreamHandler<?>)invocation.getArguments()[3]).handleResponse(response);
+                    }
+                });
+
+        fileApiClient.getFilesList(new FileListSearchParameterBuilder(), mock(FileListItemConsumer.class));
+    }
+
     @Test
     public void testGetFileLocaleStatus() throws Exception
     {
@@ -290,6 +494,327 @@ public class FileApiClientImplTest
         assertEquals(0, apiResponse.getTranslationImportErrors().size());
     }
 
+    @Test
+    public void testUploadFileExpectsContinueAboveThreshold() throws Exception
+    {
+        UploadConfiguration uploadConfiguration = new UploadConfiguration();
+        uploadConfiguration.setExpectContinueThresholdBytes(1024);
+        setField(fileApiClient, "uploadConfiguration", uploadConfiguration);
+        ArgumentCaptor<RequestDescriptor> descriptorCaptor = ArgumentCaptor.forClass(RequestDescriptor.class);
+        when(response.getContents()).thenReturn(ResponseExamples.UPLOAD_RESPONSE);
+
+        fileApiClient.uploadFile(mock(InputStream.class), FILE_URI, getFileUploadParameterBuilder().charset(CHARSET));
+
+        verify(httpUtils).executeHttpCall(any(HttpRequestBase.class), eq(proxyConfiguration), descriptorCaptor.capture());
+        assertTrue(descriptorCaptor.getValue().isExpectContinue());
+    }
+
+    @Test
+    public void testUploadFileFailsBeforeSendingBodyWhenPreflightIsRejected() throws Exception
+    {
+        UploadConfiguration uploadConfiguration = new UploadConfiguration();
+        uploadConfiguration.setValidateBeforeUpload(true);
+        setField(fileApiClient, "uploadConfiguration", uploadConfiguration);
+        HttpUtils.ResponseDetails details = mock(HttpUtils.ResponseDetails.class);
+        when(details.getStatusCode()).thenReturn(401);
+        when(details.getHeaders()).thenReturn(new Header[0]);
+        when(response.isSuccess()).thenReturn(false);
+        when(response.getContents()).thenReturn(ResponseExamples.ERROR_RESPONSE);
+
+        HttpUtils.getResponseDetails().set(details);
+        try
+        {
+            fileApiClient.uploadFile(mock(InputStream.class), FILE_URI, getFileUploadParameterBuilder().charset(CHARSET));
+            fail("Upload should be rejected");
+        }
+        catch (SmartlingApiException e)
+        {
+            verify(httpUtils, times(1)).executeHttpCall(any(HttpRequestBase.class), eq(proxyConfiguration), any(RequestDescriptor.class));
+            assertEquals(HttpGet.class, requestCaptor.getValue().getClass());
+            assertEquals("https://api.smartling.com/files-api/v2/projects/testProject/file/status?fileUri=fileUri", requestCaptor.getValue().getURI().toString());
+        }
+        finally
+        {
+            HttpUtils.getResponseDetails().remove();
+        }
+    }
+
+    @Test
+    public void testUploadFileClosesPreflightResponse() throws Exception
+    {
+        UploadConfiguration uploadConfiguration = new UploadConfiguration();
+        uploadConfiguration.setValidateBeforeUpload(true);
+        setField(fileApiClient, "uploadConfiguration", uploadConfiguration);
+        when(response.getContents()).thenReturn(ResponseExamples.UPLOAD_RESPONSE);
+
+        fileApiClient.uploadFile("key=value".getBytes(CHARSET), FILE_URI, getFileUploadParameterBuilder().charset(CHARSET));
+
+        // the pre-flight and the upload share the mocked response
+        verify(httpUtils, times(2)).executeHttpCall(any(HttpRequestBase.class), eq(proxyConfiguration), any(RequestDescriptor.class));
+        verify(response, times(2)).close();
+    }
+
+    @Test
+    public void testUploadFileCompressesTextFormats() throws Exception
+    {
+        for (String scheme : new String[] {"http", "https"})
+            System.clearProperty(scheme + ".proxyHost");
+
+        final StringBuilder receivedBody = new StringBuilder();
+        final List<String> receivedHeaders = new ArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                receivedHeaders.add(exchange.getRequestHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+                receivedHeaders.add(exchange.getRequestHeaders().getFirst(HttpHeaders.TRANSFER_ENCODING));
+                receivedBody.append(IOUtils.toString(new GZIPInputStream(exchange.getRequestBody()), CHARSET));
+
+                byte[] responseBody = ResponseExamples.UPLOAD_RESPONSE.getBytes(CHARSET);
+                exchange.sendResponseHeaders(200, responseBody.length);
+                exchange.getResponseBody().write(responseBody);
+                exchange.close();
+            }
+        });
+        server.start();
+
+        File fileToUpload = File.createTempFile("upload", ".properties");
+        try
+        {
+            FileUtils.writeStringToFile(fileToUpload, "key=value", CHARSET);
+            UploadConfiguration uploadConfiguration = new UploadConfiguration();
+            uploadConfiguration.setCompressTextFormats(true);
+            TokenProvider tokenProvider = mock(TokenProvider.class);
+            when(tokenProvider.getAuthenticationToken()).thenReturn(new AuthenticationToken("userSecret", "BEARER"));
+            FileApiClient client = new FileApiClientImpl.Builder(PROJECT_ID)
+                    .baseSmartlingApiUrl("http://localhost:" + server.getAddress().getPort())
+                    .withCustomTokenProvider(tokenProvider)
+                    .uploadConfiguration(uploadConfiguration)
+                    .build();
+
+            UploadFileData uploadFileData = client.uploadFile(fileToUpload, getFileUploadParameterBuilder().charset(CHARSET));
+
+            assertEquals(2, uploadFileData.getWordCount());
+            assertEquals(Arrays.asList("gzip", "chunked"), receivedHeaders);
+            assertTrue(receivedBody.toString().contains("key=value"));
+            assertTrue(receivedBody.toString().contains(FILE_URI));
+        }
+        finally
+        {
+            server.stop(0);
+            fileToUpload.delete();
+        }
+    }
+
+    @Test
+    public void testImportTranslationsFromChannel() throws Exception
+    {
+        when(response.getContents()).thenReturn(ResponseExamples.IMPORT_TRANSLATIONS_RESPONSE);
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream("key=translated".getBytes(CHARSET)));
+
+        fileApiClient.importTranslations(channel, FILE_URI, new FileImportParameterBuilder(LOCALE, CHARSET, FileType.JAVA_PROPERTIES, FILE_URI));
+
+        HttpEntity entity = ((HttpPost)requestCaptor.getValue()).getEntity();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        entity.writeTo(body);
+        assertEquals("https://api.smartling.com/files-api/v2/projects/testProject/locales/en-US/file/import", requestCaptor.getValue().getURI().toString());
+        assertEquals(-1, entity.getContentLength());
+        assertTrue(body.toString(CHARSET).contains("key=translated"));
+    }
+
+    @Test
+    public void testImportTranslationsFromBufferHasExactLength() throws Exception
+    {
+        when(response.getContents()).thenReturn(ResponseExamples.IMPORT_TRANSLATIONS_RESPONSE);
+        ByteBuffer contents = ByteBuffer.wrap("key=translated".getBytes(CHARSET));
+
+        fileApiClient.importTranslations(contents, FILE_URI, new FileImportParameterBuilder(LOCALE, CHARSET, FileType.JAVA_PROPERTIES, FILE_URI));
+
+        HttpEntity entity = ((HttpPost)requestCaptor.getValue()).getEntity();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        entity.writeTo(body);
+        assertEquals(body.size(), entity.getContentLength());
+        assertEquals(0, contents.position());
+        assertTrue(body.toString(CHARSET).contains("key=translated"));
+    }
+
+    @Test
+    public void testUploadRetryPauseEndsWhenCallIsCancelled() throws Exception
+    {
+        SmartlingApiException connectionReset = givenUploadRetriedAfterLongPause();
+        final CancellationToken cancellationToken = new CancellationToken();
+        CallContext.attach(new CallContext().cancellationToken(cancellationToken));
+        ScheduledExecutorService canceller = Executors.newSingleThreadScheduledExecutor();
+        canceller.schedule(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                cancellationToken.cancel();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        try
+        {
+            fileApiClient.uploadFile("key=value".getBytes(CHARSET), FILE_URI, getFileUploadParameterBuilder().charset(CHARSET));
+            fail("Cancelled upload has succeeded");
+        }
+        catch (SmartlingApiException e)
+        {
+            assertSame(connectionReset, e);
+        }
+        finally
+        {
+            CallContext.detach();
+            canceller.shutdown();
+        }
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        verify(httpUtils, times(1)).executeHttpCall(any(HttpRequestBase.class), eq(proxyConfiguration), any(RequestDescriptor.class));
+    }
+
+    @Test
+    public void testUploadNotRetriedWhenPauseOutlastsDeadline() throws Exception
+    {
+        SmartlingApiException connectionReset = givenUploadRetriedAfterLongPause();
+        CallContext.attach(new CallContext().deadline(5, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        try
+        {
+            fileApiClient.uploadFile("key=value".getBytes(CHARSET), FILE_URI, getFileUploadParameterBuilder().charset(CHARSET));
+            fail("Upload has succeeded");
+        }
+        catch (SmartlingApiException e)
+        {
+            assertSame(connectionReset, e);
+        }
+        finally
+        {
+            CallContext.detach();
+        }
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        verify(httpUtils, times(1)).executeHttpCall(any(HttpRequestBase.class), eq(proxyConfiguration), any(RequestDescriptor.class));
+    }
+
+    private SmartlingApiException givenUploadRetriedAfterLongPause() throws Exception
+    {
+        UploadConfiguration uploadConfiguration = new UploadConfiguration();
+        uploadConfiguration.setMaxAttempts(3);
+        uploadConfiguration.setRetryDelayMillis(TimeUnit.MINUTES.toMillis(10));
+        uploadConfiguration.setMaxRetryDelayMillis(TimeUnit.MINUTES.toMillis(10));
+        setField(fileApiClient, "uploadConfiguration", uploadConfiguration);
+        SmartlingApiException connectionReset = new SmartlingApiException(new IOException("Connection reset"));
+        when(httpUtils.executeHttpCall(any(HttpRequestBase.class), eq(proxyConfiguration), any(RequestDescriptor.class))).thenThrow(connectionReset);
+        return connectionReset;
+    }
+
+    @Test(timeout = 30000)
+    public void testUploadFileSentAgainAfterConnectionDroppedMidBody() throws Exception
+    {
+        for (String scheme : new String[] {"http", "https"})
+            System.clearProperty(scheme + ".proxyHost");
+
+        final ServerSocket server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        final AtomicInteger connections = new AtomicInteger();
+        Thread stubServer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    while (true)
+                    {
+                        try (Socket socket = server.accept())
+                        {
+                            InputStream in = socket.getInputStream();
+                            int contentLength = readContentLength(in);
+                            if (connections.incrementAndGet() == 1)
+                            {
+                                // reset the connection a few bytes into the body
+                                new DataInputStream(in).readFully(new byte[1024]);
+                                socket.setSoLinger(true, 0);
+                                continue;
+                            }
+                            new DataInputStream(in).readFully(new byte[contentLength]);
+                            byte[] responseBody = ResponseExamples.UPLOAD_RESPONSE.getBytes(CHARSET);
+                            OutputStream out = socket.getOutputStream();
+                            out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + responseBody.length
+                                    + "\r\nConnection: close\r\n\r\n").getBytes(CHARSET));
+                            out.write(responseBody);
+                            out.flush();
+                        }
+                    }
+                }
+                catch (IOException e)
+                {
+                    // server closed
+                }
+            }
+        });
+        stubServer.start();
+
+        try
+        {
+            final List<UploadProgress> progress = Collections.synchronizedList(new ArrayList<UploadProgress>());
+            UploadConfiguration uploadConfiguration = new UploadConfiguration();
+            uploadConfiguration.setMaxAttempts(3);
+            uploadConfiguration.setRetryDelayMillis(10);
+            uploadConfiguration.setProgressListener(new UploadProgressListener()
+            {
+                @Override
+                public void progressChanged(UploadProgress uploadProgress)
+                {
+                    progress.add(uploadProgress);
+                }
+            });
+            TokenProvider tokenProvider = mock(TokenProvider.class);
+            when(tokenProvider.getAuthenticationToken()).thenReturn(new AuthenticationToken("userSecret", "BEARER"));
+            StreamingFileApiClient client = (StreamingFileApiClient)new FileApiClientImpl.Builder(PROJECT_ID)
+                    .baseSmartlingApiUrl("http://localhost:" + server.getLocalPort())
+                    .withCustomTokenProvider(tokenProvider)
+                    .uploadConfiguration(uploadConfiguration)
+                    .build();
+            byte[] contents = new byte[4 * 1024 * 1024];
+            Arrays.fill(contents, (byte)'a');
+
+            UploadFileData uploadFileData = client.uploadFile(contents, FILE_URI, getFileUploadParameterBuilder().charset(CHARSET));
+
+            UploadProgress lastProgress = progress.get(progress.size() - 1);
+            assertEquals(2, uploadFileData.getWordCount());
+            assertEquals(2, connections.get());
+            assertEquals(2, lastProgress.getAttempt());
+            assertTrue(lastProgress.isComplete());
+            assertTrue(lastProgress.getTotalBytes() > contents.length);
+        }
+        finally
+        {
+            server.close();
+            stubServer.join();
+        }
+    }
+
+    private static int readContentLength(final InputStream in) throws IOException
+    {
+        StringBuilder headers = new StringBuilder();
+        while (!headers.toString().endsWith("\r\n\r\n"))
+        {
+            int b = in.read();
+            if (b == -1)
+                throw new EOFException();
+            headers.append((char)b);
+        }
+        for (String header : headers.toString().split("\r\n"))
+        {
+            if (header.toLowerCase().startsWith("content-length:"))
+                return Integer.parseInt(header.substring("content-length:".length()).trim());
+        }
+        return 0;
+    }
+
     private FileUploadParameterBuilder getFileUploadParameterBuilder()
     {
         FileUploadParameterBuilder fileUploadParameterBuilder = new FileUploadParameterBuilder(FileType.JAVA_PROPERTIES, FILE_URI);
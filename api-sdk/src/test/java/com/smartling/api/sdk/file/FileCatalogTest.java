@@ -0,0 +1,107 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.file.parameters.FileListSearchParameterBuilder;
+import com.smartling.api.sdk.file.response.FileListItem;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static mockit.Deencapsulation.setField;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FileCatalogTest
+{
+    @Test
+    public void shouldFindFilesByUriAndPrefix() throws Exception
+    {
+        FileCatalog.Builder builder = new FileCatalog.Builder();
+        List<String> fileUris = new ArrayList<>();
+        for (int index = 0; index < 100; index++)
+            fileUris.add(String.format("/app/%s/strings-%03d.properties", index % 2 == 0 ? "web" : "mobile", index));
+        Collections.shuffle(fileUris);
+        for (String fileUri : fileUris)
+            builder.add(fileUri, FileType.JAVA_PROPERTIES, 1000L);
+        builder.add("/app/\u00fcbersicht.json", null, FileCatalog.UNKNOWN_TIME);
+
+        FileCatalog catalog = builder.build();
+
+        assertEquals(101, catalog.size());
+        for (String fileUri : fileUris)
+            assertTrue(fileUri, catalog.contains(fileUri));
+        assertFalse(catalog.contains("/app/web/strings-001.properties"));
+        assertFalse(catalog.contains("/app"));
+        assertFalse(catalog.contains("/zzz"));
+
+        FileCatalog.Entry entry = catalog.get("/app/web/strings-042.properties");
+        assertEquals(FileType.JAVA_PROPERTIES, entry.getFileType());
+        assertEquals(1000L, entry.getLastUploaded());
+        assertNull(catalog.get("/app/\u00fcbersicht.json").getFileType());
+        assertEquals(FileCatalog.UNKNOWN_TIME, catalog.get("/app/\u00fcbersicht.json").getLastUploaded());
+
+        List<FileCatalog.Entry> found = catalog.findByPrefix("/app/web/strings-01");
+        assertEquals(5, found.size());
+        assertEquals("/app/web/strings-010.properties", found.get(0).getFileUri());
+        assertEquals("/app/web/strings-018.properties", found.get(4).getFileUri());
+        assertEquals(50, catalog.findByPrefix("/app/mobile/").size());
+        assertEquals(101, catalog.entries().size());
+        assertTrue(catalog.getUriArenaBytes() < fileUris.size() * "/app/mobile/strings-000.properties".length() / 2);
+    }
+
+    @Test
+    public void shouldKeepLastValuesOfFileAddedTwice() throws Exception
+    {
+        FileCatalog catalog = new FileCatalog.Builder()
+                .add("strings.properties", FileType.JAVA_PROPERTIES, 1L)
+                .add("strings.properties", FileType.JAVA_PROPERTIES, 2L)
+                .build();
+
+        assertEquals(1, catalog.size());
+        assertEquals(2L, catalog.get("strings.properties").getLastUploaded());
+    }
+
+    @Test
+    public void shouldLoadAllPagesOfListing() throws Exception
+    {
+        StreamingFileApiClient fileApiClient = mock(StreamingFileApiClient.class);
+        when(fileApiClient.getFilesList(any(FileListSearchParameterBuilder.class), any(FileListItemConsumer.class))).thenAnswer(new Answer<Integer>()
+        {
+            @Override
+            public Integer answer(final InvocationOnMock invocation) throws Throwable
+            {
+                FileListSearchParameterBuilder parameters = (FileListSearchParameterBuilder)invocation.getArguments()[0];
+                FileListItemConsumer consumer = (FileListItemConsumer)invocation.getArguments()[1];
+                for (int index = parameters.getOffset(); index < Math.min(parameters.getOffset() + parameters.getLimit(), 5); index++)
+                    consumer.accept(item("file-" + index + ".xml", "xml", "2015-07-29T10:34:30+0000"));
+                return 5;
+            }
+        });
+
+        FileCatalog catalog = FileCatalog.load(fileApiClient, new FileListSearchParameterBuilder(), 2);
+
+        assertEquals(5, catalog.size());
+        assertEquals(FileType.XML, catalog.get("file-4.xml").getFileType());
+        assertEquals(1438166070000L, catalog.get("file-0.xml").getLastUploaded());
+        verify(fileApiClient, times(3)).getFilesList(any(FileListSearchParameterBuilder.class), any(FileListItemConsumer.class));
+    }
+
+    private static FileListItem item(final String fileUri, final String fileType, final String lastUploaded)
+    {
+        FileListItem item = new FileListItem();
+        setField(item, "fileUri", fileUri);
+        setField(item, "fileType", fileType);
+        setField(item, "lastUploaded", lastUploaded);
+        return item;
+    }
+}
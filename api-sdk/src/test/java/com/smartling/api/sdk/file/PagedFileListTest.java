@@ -0,0 +1,163 @@
+package com.smartling.api.sdk.file;
+
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import com.smartling.api.sdk.exceptions.UncheckedSmartlingApiException;
+import com.smartling.api.sdk.file.parameters.FileListSearchParameterBuilder;
+import com.smartling.api.sdk.file.response.FileList;
+import com.smartling.api.sdk.file.response.FileListItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static mockit.Deencapsulation.setField;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PagedFileListTest
+{
+    private static final int TOTAL_COUNT = 25;
+
+    private FileApiClient fileApiClient;
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        fileApiClient = mock(FileApiClient.class);
+        when(fileApiClient.getFilesList(any(FileListSearchParameterBuilder.class))).thenAnswer(new Answer<FileList>()
+        {
+            @Override
+            public FileList answer(final InvocationOnMock invocation) throws Throwable
+            {
+                FileListSearchParameterBuilder parameters = (FileListSearchParameterBuilder)invocation.getArguments()[0];
+                return fileList(parameters.getOffset(), parameters.getLimit());
+            }
+        });
+        executorService = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void tearDown()
+    {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldIterateAllPages() throws Exception
+    {
+        PagedFileList pagedFileList = new PagedFileList(fileApiClient, new FileListSearchParameterBuilder().withUriMask("%.properties")).pageSize(10);
+
+        assertEquals(expectedUris(0, TOTAL_COUNT), fileUris(pagedFileList));
+        verify(fileApiClient, times(3)).getFilesList(any(FileListSearchParameterBuilder.class));
+    }
+
+    @Test
+    public void shouldPrefetchPagesInParallelInOrder() throws Exception
+    {
+        PagedFileList pagedFileList = new PagedFileList(fileApiClient, new FileListSearchParameterBuilder().withOffset(5).withLimit(4))
+                .prefetch(executorService, 3);
+
+        assertEquals(expectedUris(5, TOTAL_COUNT), fileUris(pagedFileList));
+        verify(fileApiClient, times(5)).getFilesList(any(FileListSearchParameterBuilder.class));
+    }
+
+    @Test
+    public void shouldNotFetchWholeListingWhenConsumerStops() throws Exception
+    {
+        PagedFileList pagedFileList = new PagedFileList(fileApiClient, new FileListSearchParameterBuilder()).pageSize(2).prefetch(executorService, 2);
+
+        try (PagedFileList.PageIterator iterator = pagedFileList.iterator())
+        {
+            assertEquals("file-0", iterator.next().getFileUri());
+        }
+
+        verify(fileApiClient, atMost(3)).getFilesList(any(FileListSearchParameterBuilder.class));
+    }
+
+    @Test
+    public void shouldRequestRestOfShortPages() throws Exception
+    {
+        // the API serves at most 3 files per call
+        when(fileApiClient.getFilesList(any(FileListSearchParameterBuilder.class))).thenAnswer(new Answer<FileList>()
+        {
+            @Override
+            public FileList answer(final InvocationOnMock invocation) throws Throwable
+            {
+                FileListSearchParameterBuilder parameters = (FileListSearchParameterBuilder)invocation.getArguments()[0];
+                return fileList(parameters.getOffset(), Math.min(3, parameters.getLimit()));
+            }
+        });
+        PagedFileList pagedFileList = new PagedFileList(fileApiClient, new FileListSearchParameterBuilder()).pageSize(10).prefetch(executorService, 2);
+
+        assertEquals(expectedUris(0, TOTAL_COUNT), fileUris(pagedFileList));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPageSizeOfZero() throws Exception
+    {
+        new PagedFileList(fileApiClient, new FileListSearchParameterBuilder()).pageSize(0);
+    }
+
+    @Test
+    public void shouldThrowApiFailureUnchecked() throws Exception
+    {
+        SmartlingApiException failure = new SmartlingApiException("Service unavailable");
+        doThrow(failure).when(fileApiClient).getFilesList(any(FileListSearchParameterBuilder.class));
+
+        try
+        {
+            new PagedFileList(fileApiClient, new FileListSearchParameterBuilder()).iterator().hasNext();
+            fail();
+        }
+        catch (UncheckedSmartlingApiException e)
+        {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    private static List<String> fileUris(final PagedFileList pagedFileList)
+    {
+        List<String> fileUris = new ArrayList<>();
+        for (FileListItem item : pagedFileList)
+            fileUris.add(item.getFileUri());
+        return fileUris;
+    }
+
+    private static List<String> expectedUris(final int from, final int to)
+    {
+        List<String> fileUris = new ArrayList<>();
+        for (int index = from; index < to; index++)
+            fileUris.add("file-" + index);
+        return fileUris;
+    }
+
+    private static FileList fileList(final int offset, final int limit)
+    {
+        List<FileListItem> items = new ArrayList<>();
+        for (int index = offset; index < Math.min(offset + limit, TOTAL_COUNT); index++)
+        {
+            FileListItem item = new FileListItem();
+            setField(item, "fileUri", "file-" + index);
+            items.add(item);
+        }
+        FileList fileList = new FileList();
+        setField(fileList, "totalCount", TOTAL_COUNT);
+        setField(fileList, "items", items);
+        return fileList;
+    }
+}
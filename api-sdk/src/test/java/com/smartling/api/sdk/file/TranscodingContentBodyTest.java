@@ -0,0 +1,67 @@
+package com.smartling.api.sdk.file;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.entity.ContentType;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.MalformedInputException;
+
+import static org.junit.Assert.assertEquals;
+
+public class TranscodingContentBodyTest
+{
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset WINDOWS_1250 = Charset.forName("windows-1250");
+    private static final String CONTENTS = "title=P\u0159\u00edli\u0161 \u017elu\u0165ou\u010dk\u00fd k\u016f\u0148 \u00fap\u011bl \u010f\u00e1belsk\u00e9 \u00f3dy";
+
+    @Test
+    public void shouldTranscodeFromCharsetOfByteOrderMark() throws Exception
+    {
+        byte[] source = concat(new byte[] {(byte)0xff, (byte)0xfe}, CONTENTS.getBytes("UTF-16LE"));
+
+        TranscodingContentBody body = transcodingBody(source, WINDOWS_1250);
+
+        assertEquals("UTF-8", body.getCharset());
+        assertEquals(CONTENTS, new String(write(body), UTF_8));
+    }
+
+    @Test
+    public void shouldTranscodeFromDeclaredCharsetAcrossBuffers() throws Exception
+    {
+        String contents = StringUtils.repeat(CONTENTS + "\n", 1000);
+        TranscodingContentBody body = transcodingBody(contents.getBytes(WINDOWS_1250), WINDOWS_1250);
+
+        assertEquals(contents, new String(write(body), UTF_8));
+        assertEquals(contents, new String(write(body), UTF_8));
+    }
+
+    @Test(expected = MalformedInputException.class)
+    public void shouldFailOnMalformedSource() throws Exception
+    {
+        write(transcodingBody(new byte[] {'a', (byte)0xc3, 'b'}, UTF_8));
+    }
+
+    private static TranscodingContentBody transcodingBody(final byte[] source, final Charset declaredCharset)
+    {
+        ByteBufferBody sourceBody = new ByteBufferBody(ByteBuffer.wrap(source), ContentType.create("text/plain"), "strings.properties");
+        return new TranscodingContentBody(sourceBody, declaredCharset, UTF_8);
+    }
+
+    private static byte[] write(final TranscodingContentBody body) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(final byte[] first, final byte[] second)
+    {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
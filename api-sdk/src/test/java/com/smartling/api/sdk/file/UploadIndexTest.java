@@ -0,0 +1,53 @@
+package com.smartling.api.sdk.file;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UploadIndexTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldCompactLogOnClose() throws Exception
+    {
+        Path indexPath = temporaryFolder.getRoot().toPath().resolve("uploads.idx");
+        UploadIndex uploadIndex = new UploadIndex(indexPath);
+        uploadIndex.putDigest("project\nfile1", "digest1");
+        uploadIndex.putDigest("project\nfile1", "digest2");
+        uploadIndex.putDigest("project\nfile2", "digest3");
+        uploadIndex.remove("project\nfile2");
+        assertEquals(4, Files.readAllLines(indexPath, StandardCharsets.UTF_8).size());
+
+        uploadIndex.close();
+
+        assertEquals(1, Files.readAllLines(indexPath, StandardCharsets.UTF_8).size());
+        UploadIndex reopenedIndex = new UploadIndex(indexPath);
+        assertEquals("digest2", reopenedIndex.getDigest("project\nfile1"));
+        assertNull(reopenedIndex.getDigest("project\nfile2"));
+        reopenedIndex.close();
+    }
+
+    @Test
+    public void shouldCompactLogWhileOpen() throws Exception
+    {
+        Path indexPath = temporaryFolder.getRoot().toPath().resolve("uploads.idx");
+        UploadIndex uploadIndex = new UploadIndex(indexPath);
+
+        for (int i = 0; i < 5000; i++)
+            uploadIndex.putDigest("project\nfile", "digest" + i);
+
+        assertTrue(Files.readAllLines(indexPath, StandardCharsets.UTF_8).size() <= 1000);
+        assertEquals("digest4999", uploadIndex.getDigest("project\nfile"));
+        uploadIndex.close();
+    }
+}
@@ -0,0 +1,119 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.BulkheadConfiguration;
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CancellationToken;
+import com.smartling.api.sdk.OperationClass;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class BulkheadsTest
+{
+    private Bulkheads bulkheads;
+
+    @Before
+    public void setUp()
+    {
+        BulkheadConfiguration bulkheadConfiguration = new BulkheadConfiguration()
+                .limit(OperationClass.UPLOAD, 1, 2)
+                .limit(OperationClass.METADATA, 0, 4);
+        bulkheadConfiguration.setMaxWaitMillis(10);
+        bulkheads = new Bulkheads(bulkheadConfiguration);
+    }
+
+    @After
+    public void tearDown()
+    {
+        bulkheads.shutdown();
+    }
+
+    @Test
+    public void shouldRejectCallWhenBulkheadIsFull() throws Exception
+    {
+        bulkheads.acquire(OperationClass.UPLOAD, null);
+        try
+        {
+            bulkheads.acquire(OperationClass.UPLOAD, null);
+            fail("Exception expected");
+        }
+        catch (SmartlingApiException e)
+        {
+            assertEquals("Bulkhead 'UPLOAD' is full", e.getMessage());
+        }
+
+        // other classes are not affected
+        bulkheads.acquire(OperationClass.DOWNLOAD, null);
+        bulkheads.acquire(OperationClass.METADATA, null);
+    }
+
+    @Test
+    public void shouldFreeSlotOnRelease() throws Exception
+    {
+        bulkheads.acquire(OperationClass.UPLOAD, null);
+        assertEquals(0, bulkheads.getAvailableCalls(OperationClass.UPLOAD));
+
+        bulkheads.release(OperationClass.UPLOAD);
+
+        assertEquals(1, bulkheads.getAvailableCalls(OperationClass.UPLOAD));
+    }
+
+    @Test
+    public void shouldGiveUpWaitingWhenCallIsCancelled() throws Exception
+    {
+        BulkheadConfiguration bulkheadConfiguration = new BulkheadConfiguration().limit(OperationClass.UPLOAD, 1, 2);
+        bulkheadConfiguration.setMaxWaitMillis(60000);
+        final Bulkheads waitingBulkheads = new Bulkheads(bulkheadConfiguration);
+        waitingBulkheads.acquire(OperationClass.UPLOAD, null);
+
+        final CancellationToken cancellationToken = new CancellationToken();
+        final BlockingQueue<SmartlingApiException> failures = new LinkedBlockingQueue<>();
+        final Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    waitingBulkheads.acquire(OperationClass.UPLOAD, new CallContext().cancellationToken(cancellationToken));
+                }
+                catch (SmartlingApiException e)
+                {
+                    failures.add(e);
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        Thread.sleep(50);
+
+        cancellationToken.cancel();
+
+        final SmartlingApiException failure = failures.poll(1, TimeUnit.SECONDS);
+        assertEquals("Call cancelled in bulkhead 'UPLOAD'", failure.getMessage());
+
+        waitingBulkheads.release(OperationClass.UPLOAD);
+        assertEquals(1, waitingBulkheads.getAvailableCalls(OperationClass.UPLOAD));
+        waitingBulkheads.shutdown();
+    }
+
+    @Test
+    public void shouldPartitionConnectionPools()
+    {
+        assertNotNull(bulkheads.getConnectionManager(OperationClass.UPLOAD));
+        assertNotNull(bulkheads.getConnectionManager(OperationClass.METADATA));
+        assertNotSame(bulkheads.getConnectionManager(OperationClass.UPLOAD), bulkheads.getConnectionManager(OperationClass.METADATA));
+        assertNull(bulkheads.getConnectionManager(OperationClass.DOWNLOAD));
+    }
+}
@@ -0,0 +1,55 @@
+package com.smartling.api.sdk.util;
+
+import org.apache.http.conn.DnsResolver;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingDnsResolverTest
+{
+    private static final String HOST = "api.smartling.com";
+
+    private DnsResolver delegate;
+    private InetAddress[] addresses;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        delegate = mock(DnsResolver.class);
+        addresses = new InetAddress[] {InetAddress.getByAddress(HOST, new byte[] {10, 0, 0, 1})};
+        when(delegate.resolve(HOST)).thenReturn(addresses);
+    }
+
+    @Test
+    public void shouldResolveOnceWithinTtl() throws Exception
+    {
+        CachingDnsResolver resolver = new CachingDnsResolver(delegate, 1, TimeUnit.MINUTES);
+
+        assertArrayEquals(addresses, resolver.resolve(HOST));
+        assertArrayEquals(addresses, resolver.resolve(HOST));
+
+        verify(delegate, times(1)).resolve(HOST);
+        assertEquals(1, resolver.getHitCount());
+        assertEquals(1, resolver.getMissCount());
+    }
+
+    @Test
+    public void shouldResolveAgainAfterTtl() throws Exception
+    {
+        CachingDnsResolver resolver = new CachingDnsResolver(delegate, 0, TimeUnit.MILLISECONDS);
+
+        resolver.resolve(HOST);
+        resolver.resolve(HOST);
+
+        verify(delegate, times(2)).resolve(HOST);
+    }
+}
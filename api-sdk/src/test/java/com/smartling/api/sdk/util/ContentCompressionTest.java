@@ -0,0 +1,79 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.OperationClass;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ByteArrayEntity;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ContentCompressionTest
+{
+    private static final String CONTENTS = "{\"response\":{\"code\":\"SUCCESS\",\"data\":{\"items\":[\"a\",\"a\",\"a\",\"a\",\"a\",\"a\",\"a\",\"a\"]}}}";
+
+    private ContentCompression contentCompression;
+
+    @Before
+    public void setUp()
+    {
+        contentCompression = new ContentCompression().disable(OperationClass.DOWNLOAD);
+    }
+
+    @Test
+    public void shouldNegotiateCompressionUnlessDisabledForOperationClass()
+    {
+        HttpGet metadataRequest = new HttpGet("https://api.smartling.com/status");
+        HttpGet downloadRequest = new HttpGet("https://api.smartling.com/file");
+
+        contentCompression.negotiate(metadataRequest, RequestDescriptor.of(OperationClass.METADATA));
+        contentCompression.negotiate(downloadRequest, RequestDescriptor.of(OperationClass.DOWNLOAD));
+
+        assertEquals(ContentCompression.ACCEPT_ENCODING, metadataRequest.getFirstHeader(HttpHeaders.ACCEPT_ENCODING).getValue());
+        assertNull(downloadRequest.getFirstHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    public void shouldDecompressGzipResponseCountingWireAndDecodedBytes() throws Exception
+    {
+        byte[] compressed = gzip(CONTENTS.getBytes("UTF-8"));
+        ByteArrayEntity entity = new ByteArrayEntity(compressed);
+        entity.setContentEncoding("gzip");
+
+        HttpEntity decoded = contentCompression.decode(entity);
+
+        assertEquals(CONTENTS, IOUtils.toString(decoded.getContent(), "UTF-8"));
+        assertEquals(compressed.length, contentCompression.getWireBytes());
+        assertEquals(CONTENTS.length(), contentCompression.getDecodedBytes());
+        assertEquals(1, contentCompression.getCompressedResponseCount());
+    }
+
+    @Test
+    public void shouldPassUncompressedResponseThrough() throws Exception
+    {
+        HttpEntity decoded = contentCompression.decode(new ByteArrayEntity(CONTENTS.getBytes("UTF-8")));
+
+        assertEquals(CONTENTS, IOUtils.toString(decoded.getContent(), "UTF-8"));
+        assertEquals(CONTENTS.length(), contentCompression.getWireBytes());
+        assertEquals(CONTENTS.length(), contentCompression.getDecodedBytes());
+        assertFalse(contentCompression.getCompressedResponseCount() > 0);
+    }
+
+    private static byte[] gzip(final byte[] bytes) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out))
+        {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
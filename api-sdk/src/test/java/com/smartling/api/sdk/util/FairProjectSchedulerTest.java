@@ -0,0 +1,137 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CancellationToken;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FairProjectSchedulerTest
+{
+    private final BlockingQueue<String> admissions = new LinkedBlockingQueue<>();
+
+    @Test
+    public void shouldAlternateProjectsByWeight() throws Exception
+    {
+        final FairProjectScheduler scheduler = new FairProjectScheduler(1, 10).weight("heavy", 2);
+        scheduler.acquire("noisy", null);
+
+        for (int i = 0; i < 4; i++)
+            acquireAsync(scheduler, "noisy");
+        waitForQueueDepth(scheduler, "noisy", 4);
+        for (int i = 0; i < 2; i++)
+            acquireAsync(scheduler, "heavy");
+        waitForQueueDepth(scheduler, "heavy", 2);
+        acquireAsync(scheduler, "quiet");
+        waitForQueueDepth(scheduler, "quiet", 1);
+
+        final List<String> order = Arrays.asList(
+                nextAdmission(scheduler, "noisy"),
+                nextAdmission(scheduler, "noisy"),
+                nextAdmission(scheduler, "heavy"),
+                nextAdmission(scheduler, "heavy"),
+                nextAdmission(scheduler, "quiet"),
+                nextAdmission(scheduler, "noisy"));
+
+        // noisy queued first so it opens the round, then every project gets as many calls as its weight
+        assertEquals(Arrays.asList("noisy", "heavy", "heavy", "quiet", "noisy", "noisy"), order);
+    }
+
+    @Test
+    public void shouldCapCallsInFlightPerProject() throws Exception
+    {
+        final FairProjectScheduler scheduler = new FairProjectScheduler(10, 2);
+        scheduler.acquire("noisy", null);
+        scheduler.acquire("noisy", null);
+
+        acquireAsync(scheduler, "noisy");
+        acquireAsync(scheduler, "quiet");
+
+        assertEquals("quiet", admissions.poll(1, TimeUnit.SECONDS));
+        assertNull(admissions.poll(50, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.getQueueDepth("noisy"));
+
+        scheduler.release("noisy");
+
+        assertEquals("noisy", admissions.poll(1, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.getInFlightCalls("noisy"));
+    }
+
+    @Test
+    public void shouldGiveUpWaitingWhenCallIsCancelled() throws Exception
+    {
+        final FairProjectScheduler scheduler = new FairProjectScheduler(1, 1);
+        scheduler.acquire("noisy", null);
+
+        final CancellationToken cancellationToken = new CancellationToken();
+        final BlockingQueue<SmartlingApiException> failures = new LinkedBlockingQueue<>();
+        final Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    scheduler.acquire("quiet", new CallContext().cancellationToken(cancellationToken));
+                }
+                catch (SmartlingApiException e)
+                {
+                    failures.add(e);
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        waitForQueueDepth(scheduler, "quiet", 1);
+
+        cancellationToken.cancel();
+
+        final SmartlingApiException failure = failures.poll(1, TimeUnit.SECONDS);
+        assertEquals("Call cancelled in queue of project 'quiet'", failure.getMessage());
+        assertEquals(0, scheduler.getQueueDepth("quiet"));
+    }
+
+    private String nextAdmission(final FairProjectScheduler scheduler, final String releasedProjectId) throws InterruptedException
+    {
+        scheduler.release(releasedProjectId);
+        return admissions.poll(1, TimeUnit.SECONDS);
+    }
+
+    private void acquireAsync(final FairProjectScheduler scheduler, final String projectId)
+    {
+        final Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    scheduler.acquire(projectId, null);
+                    admissions.add(projectId);
+                }
+                catch (SmartlingApiException e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void waitForQueueDepth(final FairProjectScheduler scheduler, final String projectId, final int depth) throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis() + 1000;
+        while (scheduler.getQueueDepth(projectId) != depth && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+        assertEquals(depth, scheduler.getQueueDepth(projectId));
+    }
+}
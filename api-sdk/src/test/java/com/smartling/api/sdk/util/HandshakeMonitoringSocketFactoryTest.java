@@ -0,0 +1,61 @@
+package com.smartling.api.sdk.util;
+
+import org.apache.http.conn.ssl.X509HostnameVerifier;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.net.Socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HandshakeMonitoringSocketFactoryTest
+{
+    private static final String HOST = "api.smartling.com";
+
+    private SSLSocketFactory sslSocketFactory;
+    private HandshakeMonitoringSocketFactory socketFactory;
+
+    @Before
+    public void setUp()
+    {
+        sslSocketFactory = mock(SSLSocketFactory.class);
+        socketFactory = new HandshakeMonitoringSocketFactory(sslSocketFactory, mock(X509HostnameVerifier.class));
+    }
+
+    @Test
+    public void shouldCountFullAndResumedHandshakes() throws Exception
+    {
+        SSLSocket fullHandshakeSocket = mockSslSocket(System.currentTimeMillis() + 1000);
+        SSLSocket resumedSocket = mockSslSocket(System.currentTimeMillis() - 60000);
+        when(sslSocketFactory.createSocket(any(Socket.class), anyString(), anyInt(), anyBoolean())).thenReturn(fullHandshakeSocket, resumedSocket);
+
+        socketFactory.createLayeredSocket(new Socket(), HOST, 443, new BasicHttpContext());
+        socketFactory.createLayeredSocket(new Socket(), HOST, 443, new BasicHttpContext());
+
+        verify(fullHandshakeSocket).startHandshake();
+        verify(resumedSocket).startHandshake();
+        assertEquals(2, socketFactory.getHandshakeCount());
+        assertEquals(1, socketFactory.getResumedHandshakeCount());
+    }
+
+    private static SSLSocket mockSslSocket(final long sessionCreationTime)
+    {
+        SSLSession session = mock(SSLSession.class);
+        when(session.getCreationTime()).thenReturn(sessionCreationTime);
+
+        SSLSocket socket = mock(SSLSocket.class);
+        when(socket.getSession()).thenReturn(session);
+        return socket;
+    }
+}
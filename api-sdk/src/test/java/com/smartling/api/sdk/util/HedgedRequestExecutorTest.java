@@ -0,0 +1,163 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.HedgingPolicy;
+import com.smartling.api.sdk.OperationClass;
+import com.smartling.api.sdk.ProxyConfiguration;
+import com.smartling.api.sdk.dto.file.StringResponse;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HedgedRequestExecutorTest
+{
+    private static final RequestDescriptor METADATA_REQUEST = RequestDescriptor.of(OperationClass.METADATA);
+    private static final String URL = "https://api.smartling.com/files-api/v2/projects/testProject/file/status?fileUri=fileUri";
+
+    private HttpUtils httpUtils;
+    private ProxyConfiguration proxyConfiguration;
+    private HedgingPolicy hedgingPolicy;
+    private StringResponse fastResponse;
+
+    @Before
+    public void setUp()
+    {
+        httpUtils = mock(HttpUtils.class);
+        proxyConfiguration = new ProxyConfiguration();
+        fastResponse = new StringResponse("fast", new byte[0], "UTF-8", true);
+
+        hedgingPolicy = new HedgingPolicy();
+        hedgingPolicy.setInitialDelayMillis(20);
+        hedgingPolicy.setMaxHedgeRatio(1.0);
+    }
+
+    @Test
+    public void shouldNotHedgeFastRequest() throws Exception
+    {
+        when(httpUtils.executeHttpCall(any(HttpRequestBase.class), any(ProxyConfiguration.class), any(RequestDescriptor.class))).thenReturn(fastResponse);
+        HedgedRequestExecutor executor = new HedgedRequestExecutor(hedgingPolicy);
+
+        assertSame(fastResponse, executor.execute(httpUtils, new HttpGet(URL), proxyConfiguration, METADATA_REQUEST));
+
+        verify(httpUtils, times(1)).executeHttpCall(any(HttpRequestBase.class), any(ProxyConfiguration.class), any(RequestDescriptor.class));
+        assertEquals(0, executor.getHedgeCount());
+    }
+
+    @Test
+    public void shouldTakeHedgeAndAbortSlowRequest() throws Exception
+    {
+        final HttpGet slowRequest = new HttpGet(URL);
+        final CountDownLatch aborted = new CountDownLatch(1);
+        when(httpUtils.executeHttpCall(any(HttpRequestBase.class), any(ProxyConfiguration.class), any(RequestDescriptor.class))).thenAnswer(new Answer<StringResponse>()
+        {
+            @Override
+            public StringResponse answer(final InvocationOnMock invocation) throws Throwable
+            {
+                HttpRequestBase request = (HttpRequestBase)invocation.getArguments()[0];
+                if (request != slowRequest)
+                    return fastResponse;
+
+                while (!request.isAborted())
+                    Thread.sleep(5);
+                aborted.countDown();
+                throw new SmartlingApiException("aborted");
+            }
+        });
+        HedgedRequestExecutor executor = new HedgedRequestExecutor(hedgingPolicy);
+
+        assertSame(fastResponse, executor.execute(httpUtils, slowRequest, proxyConfiguration, METADATA_REQUEST));
+
+        assertTrue(aborted.await(1, TimeUnit.SECONDS));
+        assertEquals(1, executor.getHedgeCount());
+        assertEquals(1, executor.getHedgeWinCount());
+    }
+
+    @Test
+    public void shouldCloseResponseOfLosingRequest() throws Exception
+    {
+        final HttpGet slowRequest = new HttpGet(URL);
+        final StringResponse slowResponse = mock(StringResponse.class);
+        when(httpUtils.executeHttpCall(any(HttpRequestBase.class), any(ProxyConfiguration.class), any(RequestDescriptor.class))).thenAnswer(new Answer<StringResponse>()
+        {
+            @Override
+            public StringResponse answer(final InvocationOnMock invocation) throws Throwable
+            {
+                HttpRequestBase request = (HttpRequestBase)invocation.getArguments()[0];
+                if (request != slowRequest)
+                    return fastResponse;
+
+                // the response has arrived just before the abort
+                while (!request.isAborted())
+                    Thread.sleep(5);
+                return slowResponse;
+            }
+        });
+        HedgedRequestExecutor executor = new HedgedRequestExecutor(hedgingPolicy);
+
+        assertSame(fastResponse, executor.execute(httpUtils, slowRequest, proxyConfiguration, METADATA_REQUEST));
+
+        verify(slowResponse, timeout(1000)).close();
+    }
+
+    @Test
+    public void shouldTakeHedgeWhenRequestFailsUnexpectedly() throws Exception
+    {
+        final HttpGet failingRequest = new HttpGet(URL);
+        when(httpUtils.executeHttpCall(any(HttpRequestBase.class), any(ProxyConfiguration.class), any(RequestDescriptor.class))).thenAnswer(new Answer<StringResponse>()
+        {
+            @Override
+            public StringResponse answer(final InvocationOnMock invocation) throws Throwable
+            {
+                if (invocation.getArguments()[0] == failingRequest)
+                {
+                    Thread.sleep(40);
+                    throw new IllegalStateException("connection pool shut down");
+                }
+                Thread.sleep(80);
+                return fastResponse;
+            }
+        });
+        HedgedRequestExecutor executor = new HedgedRequestExecutor(hedgingPolicy);
+
+        assertSame(fastResponse, executor.execute(httpUtils, failingRequest, proxyConfiguration, METADATA_REQUEST));
+
+        assertEquals(1, executor.getHedgeWinCount());
+    }
+
+    @Test
+    public void shouldNotHedgeOverBudget() throws Exception
+    {
+        hedgingPolicy.setMaxHedgeRatio(0.0);
+        when(httpUtils.executeHttpCall(any(HttpRequestBase.class), any(ProxyConfiguration.class), any(RequestDescriptor.class))).thenAnswer(new Answer<StringResponse>()
+        {
+            @Override
+            public StringResponse answer(final InvocationOnMock invocation) throws Throwable
+            {
+                Thread.sleep(60);
+                return fastResponse;
+            }
+        });
+        HedgedRequestExecutor executor = new HedgedRequestExecutor(hedgingPolicy);
+
+        assertSame(fastResponse, executor.execute(httpUtils, new HttpGet(URL), proxyConfiguration, METADATA_REQUEST));
+
+        verify(httpUtils, times(1)).executeHttpCall(any(HttpRequestBase.class), any(ProxyConfiguration.class), any(RequestDescriptor.class));
+        assertEquals(0, executor.getHedgeCount());
+    }
+}
@@ -15,9 +15,14 @@
  */
 package com.smartling.api.sdk.util;
 
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CancellationToken;
+import com.smartling.api.sdk.OperationClass;
 import com.smartling.api.sdk.ProxyConfiguration;
+import com.smartling.api.sdk.TimeoutConfiguration;
 import com.smartling.api.sdk.dto.file.StringResponse;
 import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
@@ -26,21 +31,34 @@ import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -81,6 +99,12 @@ public class HttpUtilsTest
         when(httpResponse.getStatusLine()).thenReturn(statusLine);
     }
     
+    @After
+    public void tearDown()
+    {
+        CallContext.detach();
+    }
+
     @Test
     public void testExecuteHttpCall() throws SmartlingApiException, ClientProtocolException, IOException
     {
@@ -172,4 +196,323 @@ public class HttpUtilsTest
         assertEquals(USERNAME, proxyConfiguration.getUsername());
         assertEquals(PASSWORD, proxyConfiguration.getPassword());
     }
+
+    @Test
+    public void shouldReadJsonResponsesIntoPooledBuffers() throws Exception
+    {
+        ResponseBufferPool responseBufferPool = new ResponseBufferPool(1024, 1);
+        httpUtils.setResponseBufferPool(responseBufferPool);
+        when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        when(httpEntity.getContentLength()).thenReturn((long)TEST_RESPONSE.length());
+        when(httpEntity.getContent()).thenReturn(responseStream(), responseStream(), responseStream());
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpProxyUtils.getHttpClient(proxyConfiguration)).thenReturn(httpClient);
+        when(httpClient.execute(httpRequest)).thenReturn(httpResponse);
+
+        StringResponse first = httpUtils.executeHttpCall(httpRequest, proxyConfiguration, RequestDescriptor.of(OperationClass.METADATA));
+        StringResponse second = httpUtils.executeHttpCall(httpRequest, proxyConfiguration, RequestDescriptor.of(OperationClass.METADATA));
+        StringResponse download = httpUtils.executeHttpCall(httpRequest, proxyConfiguration, RequestDescriptor.of(OperationClass.DOWNLOAD));
+
+        assertEquals(TEST_RESPONSE, first.getContents());
+        assertEquals(TEST_RESPONSE, second.getContents());
+        assertEquals(TEST_RESPONSE.length(), second.getContentLength());
+        assertArrayEquals(TEST_RESPONSE.getBytes(StandardCharsets.UTF_8), download.getContentsRaw());
+        assertEquals(1, responseBufferPool.getAllocatedBufferCount());
+        assertEquals(1, responseBufferPool.getReusedBufferCount());
+        assertEquals(1, responseBufferPool.getPooledBufferCount());
+    }
+
+    @Test
+    public void shouldReadResponseLongerThanPooledBuffer() throws Exception
+    {
+        httpUtils.setResponseBufferPool(new ResponseBufferPool(16, 1));
+        when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        when(httpEntity.getContentLength()).thenReturn(-1L);
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpProxyUtils.getHttpClient(proxyConfiguration)).thenReturn(httpClient);
+        when(httpClient.execute(httpRequest)).thenReturn(httpResponse);
+
+        StringResponse response = httpUtils.executeHttpCall(httpRequest, proxyConfiguration, RequestDescriptor.of(OperationClass.METADATA));
+
+        assertEquals(TEST_RESPONSE, response.getContents());
+        assertArrayEquals(TEST_RESPONSE.getBytes(StandardCharsets.UTF_8), response.getContentsRaw());
+    }
+
+    @Test
+    public void shouldReadBodyOfDeclaredLength() throws Exception
+    {
+        byte[] contents = TEST_RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(contents, HttpUtils.toByteArray(new ByteArrayInputStream(contents), contents.length));
+        assertArrayEquals(contents, HttpUtils.toByteArray(new ByteArrayInputStream(contents), contents.length - 10));
+        assertArrayEquals(contents, HttpUtils.toByteArray(new ByteArrayInputStream(contents), contents.length + 10));
+    }
+
+    @Test
+    public void shouldHandSuccessfulBodyToStreamHandlerAndBufferOthers() throws Exception
+    {
+        when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK, HttpStatus.SC_NOT_FOUND);
+        when(httpEntity.getContent()).thenReturn(responseStream(), responseStream());
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpProxyUtils.getHttpClient(proxyConfiguration)).thenReturn(httpClient);
+        when(httpClient.execute(httpRequest)).thenReturn(httpResponse);
+        ResponseStreamHandler<String> handler = new ResponseStreamHandler<String>()
+        {
+            @Override
+            public String handleStream(final InputStream body, final String encoding) throws IOException
+            {
+                return "streamed " + IOUtils.toString(body, encoding);
+            }
+
+            @Override
+            public String handleResponse(final StringResponse response)
+            {
+                return "buffered " + response.getContents();
+            }
+        };
+
+        assertEquals("streamed " + TEST_RESPONSE, httpUtils.executeHttpCall(httpRequest, proxyConfiguration, null, handler));
+        assertEquals("buffered " + TEST_RESPONSE, httpUtils.executeHttpCall(httpRequest, proxyConfiguration, null, handler));
+    }
+
+    @Test
+    public void shouldApplyDefaultTimeouts() throws Exception
+    {
+        TimeoutConfiguration timeoutConfiguration = new TimeoutConfiguration();
+        timeoutConfiguration.setConnectTimeoutMillis(1000);
+        timeoutConfiguration.setConnectionRequestTimeoutMillis(2000);
+        timeoutConfiguration.setSocketTimeoutMillis(3000);
+        httpUtils.setTimeoutConfiguration(timeoutConfiguration);
+        when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpProxyUtils.getHttpClient(any(ProxyConfiguration.class))).thenReturn(httpClient);
+        when(httpClient.execute(httpRequest)).thenReturn(httpResponse);
+
+        httpUtils.executeHttpCall(httpRequest, proxyConfiguration);
+
+        ArgumentCaptor<RequestConfig> requestConfigCaptor = ArgumentCaptor.forClass(RequestConfig.class);
+        verify(httpRequest).setConfig(requestConfigCaptor.capture());
+        assertEquals(1000, requestConfigCaptor.getValue().getConnectTimeout());
+        assertEquals(2000, requestConfigCaptor.getValue().getConnectionRequestTimeout());
+        assertEquals(3000, requestConfigCaptor.getValue().getSocketTimeout());
+    }
+
+    @Test
+    public void shouldReuseSharedRequestConfigUntilTimeoutsChange() throws Exception
+    {
+        TimeoutConfiguration timeoutConfiguration = new TimeoutConfiguration();
+        httpUtils.setTimeoutConfiguration(timeoutConfiguration);
+        when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpProxyUtils.getHttpClient(any(ProxyConfiguration.class))).thenReturn(httpClient);
+        when(httpClient.execute(httpRequest)).thenReturn(httpResponse);
+
+        httpUtils.executeHttpCall(httpRequest, proxyConfiguration);
+        // a deadline longer than the timeouts leaves them as they are
+        CallContext.attach(new CallContext().deadline(1, TimeUnit.HOURS));
+        httpUtils.executeHttpCall(httpRequest, proxyConfiguration);
+        CallContext.detach();
+        timeoutConfiguration.setSocketTimeoutMillis(5000);
+        httpUtils.executeHttpCall(httpRequest, proxyConfiguration);
+
+        ArgumentCaptor<RequestConfig> requestConfigCaptor = ArgumentCaptor.forClass(RequestConfig.class);
+        verify(httpRequest, times(3)).setConfig(requestConfigCaptor.capture());
+        assertSame(requestConfigCaptor.getAllValues().get(0), requestConfigCaptor.getAllValues().get(1));
+        assertEquals(5000, requestConfigCaptor.getAllValues().get(2).getSocketTimeout());
+    }
+
+    @Test
+    public void shouldLimitTimeoutsByCallDeadline() throws Exception
+    {
+        httpUtils.setTimeoutConfiguration(new TimeoutConfiguration());
+        CallContext.attach(new CallContext().deadline(500, TimeUnit.MILLISECONDS));
+        when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpProxyUtils.getHttpClient(any(ProxyConfiguration.class))).thenReturn(httpClient);
+        when(httpClient.execute(httpRequest)).thenReturn(httpResponse);
+
+        httpUtils.executeHttpCall(httpRequest, proxyConfiguration);
+
+        ArgumentCaptor<RequestConfig> requestConfigCaptor = ArgumentCaptor.forClass(RequestConfig.class);
+        verify(httpRequest).setConfig(requestConfigCaptor.capture());
+        assertTrue(requestConfigCaptor.getValue().getSocketTimeout() <= 500);
+        assertTrue(requestConfigCaptor.getValue().getConnectTimeout() <= 500);
+    }
+
+    @Test
+    public void shouldFailWithoutSendingWhenDeadlineExceeded() throws Exception
+    {
+        CallContext.attach(new CallContext().deadline(0, TimeUnit.MILLISECONDS));
+
+        try
+        {
+            httpUtils.executeHttpCall(httpRequest, proxyConfiguration);
+            fail("Deadline should be exceeded");
+        }
+        catch (SmartlingApiException e)
+        {
+            assertEquals("Call deadline exceeded", e.getMessage());
+        }
+        verify(httpProxyUtils, never()).getHttpClient(any(ProxyConfiguration.class));
+    }
+
+    @Test
+    public void shouldAbortRequestOnDeadline() throws Exception
+    {
+        final HttpGet slowRequest = new HttpGet("https://api.smartling.com");
+        CallContext.attach(new CallContext().deadline(100, TimeUnit.MILLISECONDS));
+
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpProxyUtils.getHttpClient(any(ProxyConfiguration.class))).thenReturn(httpClient);
+        when(httpClient.execute(slowRequest)).thenAnswer(new Answer<CloseableHttpResponse>()
+        {
+            @Override
+            public CloseableHttpResponse answer(final InvocationOnMock invocation) throws Throwable
+            {
+                long giveUp = System.currentTimeMillis() + 5000;
+                while (!slowRequest.isAborted() && System.currentTimeMillis() < giveUp)
+                    Thread.sleep(5);
+                throw new IOException("Request aborted");
+            }
+        });
+
+        try
+        {
+            httpUtils.executeHttpCall(slowRequest, proxyConfiguration);
+            fail("Deadline should be exceeded");
+        }
+        catch (SmartlingApiException e)
+        {
+            assertEquals("Call deadline exceeded", e.getMessage());
+        }
+        assertTrue(slowRequest.isAborted());
+    }
+
+    @Test
+    public void shouldAbortRequestOnCancel() throws Exception
+    {
+        final HttpGet slowRequest = new HttpGet("https://api.smartling.com");
+        final CancellationToken cancellationToken = new CancellationToken();
+        CallContext.attach(new CallContext().cancellationToken(cancellationToken));
+
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpProxyUtils.getHttpClient(any(ProxyConfiguration.class))).thenReturn(httpClient);
+        when(httpClient.execute(slowRequest)).thenAnswer(new Answer<CloseableHttpResponse>()
+        {
+            @Override
+            public CloseableHttpResponse answer(final InvocationOnMock invocation) throws Throwable
+            {
+                cancellationToken.cancel();
+                if (slowRequest.isAborted())
+                    throw new IOException("Request aborted");
+                return httpResponse;
+            }
+        });
+
+        try
+        {
+            httpUtils.executeHttpCall(slowRequest, proxyConfiguration);
+            fail("Call should be cancelled");
+        }
+        catch (SmartlingApiException e)
+        {
+            assertEquals("Call cancelled", e.getMessage());
+        }
+        assertTrue(slowRequest.isAborted());
+    }
+
+    @Test
+    public void shouldResolveProxyOnceAndReusePooledClient() throws Exception
+    {
+        httpUtils.setMaxPooledConnections(1);
+        when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpProxyUtils.getHttpClient(any(ProxyConfiguration.class), any(HttpClientConnectionManager.class))).thenReturn(httpClient);
+        when(httpClient.execute(httpRequest)).thenReturn(httpResponse);
+
+        httpUtils.executeHttpCall(httpRequest, proxyConfiguration);
+        httpUtils.executeHttpCall(httpRequest, proxyConfiguration);
+
+        verify(httpProxyUtils, times(1)).getProxyRequestConfig(eq(httpRequest), any(ProxyConfiguration.class));
+        verify(httpProxyUtils, times(1)).getHttpClient(any(ProxyConfiguration.class), any(HttpClientConnectionManager.class));
+        verify(httpClient, never()).close();
+        httpUtils.shutdown();
+    }
+
+    @Test
+    public void shouldResolveProxyAgainWhenConfigurationChanges() throws Exception
+    {
+        when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpProxyUtils.getHttpClient(any(ProxyConfiguration.class))).thenReturn(httpClient);
+        when(httpClient.execute(httpRequest)).thenReturn(httpResponse);
+
+        httpUtils.executeHttpCall(httpRequest, proxyConfiguration);
+        proxyConfiguration.setHost("otherHost");
+        httpUtils.executeHttpCall(httpRequest, proxyConfiguration);
+
+        verify(httpProxyUtils, times(2)).getProxyRequestConfig(eq(httpRequest), any(ProxyConfiguration.class));
+    }
+
+    @Test
+    public void shouldWarmUpPooledConnections() throws Exception
+    {
+        for (String scheme : new String[] {HttpUtils.SCHEME_HTTP, HttpUtils.SCHEME_HTTPS})
+        {
+            System.clearProperty(scheme + HttpUtils.PROPERTY_SUFFIX_PROXY_HOST);
+            System.clearProperty(scheme + HttpUtils.PROPERTY_SUFFIX_PROXY_PORT);
+        }
+        ServerSocket server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        try
+        {
+            httpUtils.setHttpProxyUtils(new HttpProxyUtils());
+            httpUtils.setMaxPooledConnections(4);
+
+            int opened = httpUtils.warmUp("http://localhost:" + server.getLocalPort(), 2, null);
+
+            assertEquals(2, opened);
+            assertEquals(2, httpUtils.getPooledConnectionManager().getTotalStats().getAvailable());
+        }
+        finally
+        {
+            httpUtils.shutdown();
+            server.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldWarmUpNoMoreConnectionsThanPoolHolds() throws Exception
+    {
+        for (String scheme : new String[] {HttpUtils.SCHEME_HTTP, HttpUtils.SCHEME_HTTPS})
+        {
+            System.clearProperty(scheme + HttpUtils.PROPERTY_SUFFIX_PROXY_HOST);
+            System.clearProperty(scheme + HttpUtils.PROPERTY_SUFFIX_PROXY_PORT);
+        }
+        ServerSocket server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        try
+        {
+            httpUtils.setHttpProxyUtils(new HttpProxyUtils());
+            httpUtils.setMaxPooledConnections(2);
+
+            int opened = httpUtils.warmUp("http://localhost:" + server.getLocalPort(), 8, null);
+
+            assertEquals(2, opened);
+            assertEquals(2, httpUtils.getPooledConnectionManager().getTotalStats().getAvailable());
+        }
+        finally
+        {
+            httpUtils.shutdown();
+            server.close();
+        }
+    }
+
+    private static InputStream responseStream()
+    {
+        return new ByteArrayInputStream(TEST_RESPONSE.getBytes(StandardCharsets.UTF_8));
+    }
 }
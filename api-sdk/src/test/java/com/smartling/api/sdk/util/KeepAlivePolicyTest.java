@@ -0,0 +1,86 @@
+package com.smartling.api.sdk.util;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpCoreContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeepAlivePolicyTest
+{
+    private KeepAlivePolicy keepAlivePolicy;
+
+    @Before
+    public void setUp()
+    {
+        keepAlivePolicy = new KeepAlivePolicy(30, 10, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown()
+    {
+        keepAlivePolicy.shutdown();
+    }
+
+    @Test
+    public void shouldCapServerKeepAlive()
+    {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        response.addHeader("Keep-Alive", "timeout=300");
+        assertEquals(30000, keepAlivePolicy.getKeepAliveDuration(response, HttpClientContext.create()));
+
+        response.setHeader("Keep-Alive", "timeout=5");
+        assertEquals(5000, keepAlivePolicy.getKeepAliveDuration(response, HttpClientContext.create()));
+
+        response.removeHeaders("Keep-Alive");
+        assertEquals(30000, keepAlivePolicy.getKeepAliveDuration(response, HttpClientContext.create()));
+    }
+
+    @Test
+    public void shouldCountStaleConnectionRetries()
+    {
+        HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpCoreContext.HTTP_REQUEST, new HttpGet("https://api.smartling.com"));
+
+        assertTrue(keepAlivePolicy.getRetryHandler().retryRequest(new NoHttpResponseException("stale"), 1, context));
+
+        assertEquals(1, keepAlivePolicy.getStaleConnectionRetryCount());
+    }
+
+    @Test
+    public void shouldEvictIdleConnections() throws Exception
+    {
+        ServerSocket server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        HttpUtils httpUtils = new HttpUtils();
+        try
+        {
+            keepAlivePolicy = new KeepAlivePolicy(30, 0, TimeUnit.SECONDS);
+            httpUtils.setMaxPooledConnections(2);
+            httpUtils.setKeepAlivePolicy(keepAlivePolicy);
+            assertEquals(2, httpUtils.warmUp("http://localhost:" + server.getLocalPort(), 2, null));
+
+            keepAlivePolicy.evictConnections();
+
+            assertEquals(0, httpUtils.getPooledConnectionManager().getTotalStats().getAvailable());
+            assertEquals(2, keepAlivePolicy.getEvictedConnectionCount());
+        }
+        finally
+        {
+            httpUtils.shutdown();
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.CallContext;
+import com.smartling.api.sdk.CallPriority;
+import com.smartling.api.sdk.CancellationToken;
+import com.smartling.api.sdk.exceptions.SmartlingApiException;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PrioritySchedulerTest
+{
+    @Test
+    public void shouldAdmitInteractiveCallBeforeWaitingBatchCall() throws Exception
+    {
+        final PriorityScheduler scheduler = new PriorityScheduler(1, 1);
+        scheduler.acquire(CallPriority.BATCH, null);
+
+        final CountDownLatch batchAdmitted = acquireAsync(scheduler, CallPriority.BATCH);
+        waitForQueueDepth(scheduler, CallPriority.BATCH, 1);
+        final CountDownLatch interactiveAdmitted = acquireAsync(scheduler, CallPriority.INTERACTIVE);
+        waitForQueueDepth(scheduler, CallPriority.INTERACTIVE, 1);
+
+        scheduler.release(CallPriority.BATCH);
+
+        assertTrue(interactiveAdmitted.await(1, TimeUnit.SECONDS));
+        assertFalse(batchAdmitted.await(50, TimeUnit.MILLISECONDS));
+
+        scheduler.release(CallPriority.INTERACTIVE);
+
+        assertTrue(batchAdmitted.await(1, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.getAdmittedCalls(CallPriority.BATCH));
+        assertEquals(1, scheduler.getAdmittedCalls(CallPriority.INTERACTIVE));
+    }
+
+    @Test
+    public void shouldThrottleBatchCallsUnderInteractiveLoad() throws Exception
+    {
+        final PriorityScheduler scheduler = new PriorityScheduler(4, 1);
+        scheduler.acquire(CallPriority.INTERACTIVE, null);
+        scheduler.acquire(CallPriority.BATCH, null);
+
+        final CountDownLatch batchAdmitted = acquireAsync(scheduler, CallPriority.BATCH);
+        assertFalse(batchAdmitted.await(50, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.getQueueDepth(CallPriority.BATCH));
+
+        scheduler.release(CallPriority.INTERACTIVE);
+
+        assertTrue(batchAdmitted.await(1, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.getInFlightCalls(CallPriority.BATCH));
+    }
+
+    @Test
+    public void shouldGiveUpWaitingOnDeadline() throws Exception
+    {
+        final PriorityScheduler scheduler = new PriorityScheduler(1, 1);
+        scheduler.acquire(CallPriority.INTERACTIVE, null);
+
+        try
+        {
+            scheduler.acquire(CallPriority.BATCH, new CallContext().deadline(20, TimeUnit.MILLISECONDS));
+            fail("Exception expected");
+        }
+        catch (SmartlingApiException e)
+        {
+            assertEquals("Call deadline exceeded in BATCH queue", e.getMessage());
+        }
+        assertEquals(0, scheduler.getQueueDepth(CallPriority.BATCH));
+    }
+
+    @Test
+    public void shouldGiveUpWaitingWhenCallIsCancelled() throws Exception
+    {
+        final PriorityScheduler scheduler = new PriorityScheduler(1, 1);
+        scheduler.acquire(CallPriority.INTERACTIVE, null);
+
+        final CancellationToken cancellationToken = new CancellationToken();
+        final BlockingQueue<SmartlingApiException> failures = new LinkedBlockingQueue<>();
+        final Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    scheduler.acquire(CallPriority.BATCH, new CallContext().cancellationToken(cancellationToken));
+                }
+                catch (SmartlingApiException e)
+                {
+                    failures.add(e);
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        waitForQueueDepth(scheduler, CallPriority.BATCH, 1);
+
+        cancellationToken.cancel();
+
+        final SmartlingApiException failure = failures.poll(1, TimeUnit.SECONDS);
+        assertEquals("Call cancelled in BATCH queue", failure.getMessage());
+        assertEquals(0, scheduler.getQueueDepth(CallPriority.BATCH));
+    }
+
+    private static CountDownLatch acquireAsync(final PriorityScheduler scheduler, final CallPriority priority)
+    {
+        final CountDownLatch admitted = new CountDownLatch(1);
+        final Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    scheduler.acquire(priority, null);
+                    admitted.countDown();
+                }
+                catch (SmartlingApiException e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return admitted;
+    }
+
+    private static void waitForQueueDepth(final PriorityScheduler scheduler, final CallPriority priority, final int depth) throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis() + 1000;
+        while (scheduler.getQueueDepth(priority) != depth && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+        assertEquals(depth, scheduler.getQueueDepth(priority));
+    }
+}
@@ -0,0 +1,161 @@
+package com.smartling.api.sdk.util;
+
+import com.smartling.api.sdk.dto.file.StringResponse;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseBufferTest
+{
+    private static final String UTF_8 = "UTF-8";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldKeepSmallBodyInHeap() throws Exception
+    {
+        ResponseBuffer responseBuffer = new ResponseBuffer(1024, 4096);
+
+        StringResponse response = responseBuffer.buffer(stream("{\"response\":{}}"), -1, UTF_8, true);
+
+        assertFalse(response.isBufferedOnDisk());
+        assertEquals("{\"response\":{}}", response.getContents());
+        assertEquals(0, responseBuffer.getSpilledResponseCount());
+    }
+
+    @Test
+    public void shouldCountHeapOfBodyAndTextUntilResponseIsClosed() throws Exception
+    {
+        ResponseBuffer responseBuffer = new ResponseBuffer(1024, 4096);
+
+        StringResponse undeclared = responseBuffer.buffer(stream("0123456789"), -1, UTF_8, true);
+        StringResponse declared = responseBuffer.buffer(stream("0123456789"), 10, UTF_8, true);
+
+        assertEquals(60, responseBuffer.getHeapBytes());
+        undeclared.close();
+        undeclared.close();
+        assertEquals(30, responseBuffer.getHeapBytes());
+        declared.close();
+        assertEquals(0, responseBuffer.getHeapBytes());
+    }
+
+    @Test
+    public void shouldSpillWhenHeapOfOpenResponsesReachesLimit() throws Exception
+    {
+        ResponseBuffer responseBuffer = new ResponseBuffer(1024, 48);
+        responseBuffer.setTempDirectory(temporaryFolder.getRoot());
+
+        StringResponse first = responseBuffer.buffer(stream("0123456789"), 10, UTF_8, true);
+        StringResponse second = responseBuffer.buffer(stream("0123456789"), 10, UTF_8, true);
+        first.close();
+        StringResponse third = responseBuffer.buffer(stream("0123456789"), 10, UTF_8, true);
+
+        assertFalse(first.isBufferedOnDisk());
+        assertTrue(second.isBufferedOnDisk());
+        assertFalse(third.isBufferedOnDisk());
+        second.close();
+        third.close();
+        assertEquals(0, responseBuffer.getHeapBytes());
+    }
+
+    @Test
+    public void shouldSpillBodyLargerThanThresholdAndDeleteItOnClose() throws Exception
+    {
+        ResponseBuffer responseBuffer = new ResponseBuffer(1024, 1024 * 1024);
+        responseBuffer.setTempDirectory(temporaryFolder.getRoot());
+        String contents = StringUtils.repeat("key=value\n", 10000);
+
+        StringResponse response = responseBuffer.buffer(stream(contents), -1, UTF_8, true);
+
+        assertTrue(response.isBufferedOnDisk());
+        assertEquals(contents.length(), response.getContentLength());
+        try (InputStream inputStream = response.openStream())
+        {
+            assertArrayEquals(contents.getBytes(UTF_8), IOUtils.toByteArray(inputStream));
+        }
+        try (Reader reader = response.openReader())
+        {
+            assertEquals(contents, IOUtils.toString(reader));
+        }
+        assertEquals(contents, response.getContents());
+        assertEquals(1, responseBuffer.getSpilledResponseCount());
+
+        response.close();
+        assertEquals(0, temporaryFolder.getRoot().list().length);
+    }
+
+    @Test
+    public void shouldSpillWhenDeclaredLengthIsOverThreshold() throws Exception
+    {
+        ResponseBuffer responseBuffer = new ResponseBuffer(8, 1024);
+        responseBuffer.setTempDirectory(temporaryFolder.getRoot());
+
+        StringResponse response = responseBuffer.buffer(stream("0123456789"), 10, UTF_8, false);
+
+        assertTrue(response.isBufferedOnDisk());
+        assertFalse(response.isSuccess());
+        assertEquals("0123456789", response.getContents());
+        response.close();
+    }
+
+    @Test
+    public void shouldSpillWhenHeapLimitIsReached() throws Exception
+    {
+        // a body takes three times its size with its decoded text
+        final ResponseBuffer responseBuffer = new ResponseBuffer(64 * 1024, 192 * 1024);
+        responseBuffer.setTempDirectory(temporaryFolder.getRoot());
+        final StringResponse[] concurrentResponse = new StringResponse[1];
+
+        // the first body is still being read while the second one arrives
+        InputStream firstBody = new ByteArrayInputStream(new byte[60 * 1024])
+        {
+            private boolean secondBodyRead;
+
+            @Override
+            public synchronized int read(final byte[] b, final int off, final int len)
+            {
+                if (pos >= 40 * 1024 && !secondBodyRead)
+                {
+                    secondBodyRead = true;
+                    try
+                    {
+                        concurrentResponse[0] = responseBuffer.buffer(new ByteArrayInputStream(new byte[32 * 1024]), -1, UTF_8, true);
+                    }
+                    catch (Exception e)
+                    {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return super.read(b, off, len);
+            }
+        };
+
+        StringResponse response = responseBuffer.buffer(firstBody, -1, UTF_8, true);
+
+        assertFalse(response.isBufferedOnDisk());
+        assertTrue(concurrentResponse[0].isBufferedOnDisk());
+        assertEquals(32 * 1024, concurrentResponse[0].getContentLength());
+        assertEquals(180 * 1024, responseBuffer.getHeapBytes());
+        response.close();
+        concurrentResponse[0].close();
+        assertEquals(0, responseBuffer.getHeapBytes());
+        assertEquals(0, temporaryFolder.getRoot().list().length);
+    }
+
+    private static InputStream stream(final String contents) throws Exception
+    {
+        return new ByteArrayInputStream(contents.getBytes(UTF_8));
+    }
+}